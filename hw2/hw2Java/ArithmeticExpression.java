@@ -1,53 +1,442 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
 class ArithmeticExpression {
+    // below this many nodes, forking a task costs more than evaluating the subtree
+    private static final long PARALLEL_THRESHOLD = 1 << 13;
+
+    // compiled trees nested deeper than this are not inlined anyway, and could overflow the stack when invoked
+    private static final int MAX_HANDLE_DEPTH = 128;
+
+    private static final MethodType BINDINGS_TO_DOUBLE = MethodType.methodType(double.class, double[].class);
+    private static final MethodHandle[] OPERATIONS = new MethodHandle[Operator.values().length];
+    private static final MethodHandle TRUNCATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle apply = lookup.findVirtual(Operator.class, "applyAsDouble",
+                    MethodType.methodType(double.class, double.class, double.class));
+            for (Operator operator : Operator.values()) OPERATIONS[operator.ordinal()] = apply.bindTo(operator);
+            TRUNCATE = lookup.findStatic(ArithmeticExpression.class, "truncate",
+                    MethodType.methodType(double.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static volatile EvaluationListener listener;
+
+    /**
+     * Installs a listener that observes every call to {@link #evaluate(BinaryTree)}, or removes it if
+     * <code>listener</code> is <code>null</code>. Without a listener, evaluation does no instrumentation work at all.
+     */
+    public static void setListener(EvaluationListener listener) {
+        ArithmeticExpression.listener = listener;
+    }
+
+    /**
+     * Evaluates the tree in <code>double</code> arithmetic. If the tree holds <code>Integer</code>s, every intermediate
+     * result is truncated to an <code>int</code>, so <code>DIVIDE</code> behaves as integer division.
+     */
     public static <T extends Number> double evaluate(BinaryTree<T> tree) {
-        Leaf<T> boxedResult = evaluateBoxed(tree);
-        return evaluateLeaf(boxedResult).doubleValue();
-    }
-
-    private static <T extends Number> Leaf<T> evaluateBoxed(BinaryTree<T> tree) {
-        if (tree instanceof Leaf) return ((Leaf<T>) tree);
-        // sealed classes are not available in 1.8
-        if (!(tree instanceof Node)) throw new IllegalArgumentException("invalid tree type");
-        Node<T> node = ((Node<T>) tree);
-        if (node.getLeft() instanceof Node)
-            return evaluateBoxed(new Node<>(node.getOperator(), evaluateBoxed(node.getLeft()), node.getRight()));
-        if (node.getRight() instanceof Node)
-            return evaluateBoxed(new Node<>(node.getOperator(), node.getLeft(), evaluateBoxed(node.getRight())));
-
-        // left and right are both Leaf
-        assert (node.getLeft() instanceof Leaf && node.getRight() instanceof Leaf);
-
-        Double resultVal = null;
-        Double leftVal = evaluateLeaf((Leaf<T>) node.getLeft()).doubleValue();
-        Double rightVal = evaluateLeaf((Leaf<T>) node.getRight()).doubleValue();
-
-        boolean intLeaf = ((Leaf<T>) node.getLeft()).getValue() instanceof Integer;
-        switch (node.getOperator()) {
-            case ADD:
-                resultVal = leftVal + rightVal;
-                break;
-            case SUBTRACT:
-                resultVal = leftVal - rightVal;
-                break;
-            case MULTIPLY:
-                resultVal = leftVal * rightVal;
-                break;
-            case DIVIDE:
-                if (intLeaf) {
-                    // perform integer division
-                    resultVal = (double) (int) (leftVal / rightVal);
-
-                } else resultVal = leftVal / rightVal;
-                System.out.printf("%s / %s = %s%n", leftVal, rightVal, resultVal);
-                break;
+        boolean integral = PostfixProgram.isIntegral(tree);
+        EvaluationListener listener = ArithmeticExpression.listener;
+        if (listener == null) return evaluateIterative(tree, integral, null);
+
+        listener.onTree(tree.size(), tree.depth());
+        long start = System.nanoTime();
+        double result = evaluateIterative(tree, integral, listener);
+        listener.onEvaluation(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Evaluates the tree exactly like {@link #evaluate(BinaryTree)} with an explicit post-order stack instead of
+     * recursion. It takes time linear in the number of nodes and constant Java stack depth whatever the shape of
+     * the tree, so degenerate chains of any length are safe.
+     */
+    public static <T extends Number> double evaluateIterative(BinaryTree<T> tree) {
+        return evaluateIterative(tree, PostfixProgram.isIntegral(tree), null);
+    }
+
+    private static double evaluateIterative(BinaryTree<?> root, boolean integral, EvaluationListener listener) {
+        // pending nodes, each either unvisited or waiting for its operands to be on the value stack
+        BinaryTree<?>[] pending = new BinaryTree<?>[16];
+        boolean[] expanded = new boolean[16];
+        double[] values = new double[16];
+        int top = 0;
+        int sp = 0;
+        pending[top++] = root;
+
+        while (top > 0) {
+            BinaryTree<?> tree = pending[--top];
+            if (PostfixProgram.isLeaf(tree)) {
+                if (sp == values.length) values = Arrays.copyOf(values, 2 * sp);
+                values[sp++] = PostfixProgram.valueOf(tree);
+                continue;
+            }
+            if (!(tree instanceof Node)) throw new IllegalArgumentException("invalid tree type");
+            Node<?> node = ((Node<?>) tree);
+
+            if (expanded[top]) {
+                double right = values[--sp];
+                double left = values[sp - 1];
+                double result = node.getOperator().applyAsDouble(left, right);
+                if (integral) result = (int) result;
+                if (listener != null) listener.onOperation(node.getOperator(), left, right, result);
+                values[sp - 1] = result;
+                continue;
+            }
+
+            // revisit this node after both children; the left child is evaluated first
+            if (top + 3 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+                expanded = Arrays.copyOf(expanded, pending.length);
+            }
+            pending[top] = node;
+            expanded[top++] = true;
+            pending[top] = node.getRight();
+            expanded[top++] = false;
+            pending[top] = node.getLeft();
+            expanded[top++] = false;
+        }
+        return values[0];
+    }
+
+    /**
+     * Lowers the tree once into a postfix program that can be evaluated repeatedly without allocating. The program
+     * computes the same value as {@link #evaluate(BinaryTree)}.
+     */
+    public static <T extends Number> PostfixProgram toPostfix(BinaryTree<T> tree) {
+        return PostfixProgram.compile(tree);
+    }
+
+    /**
+     * Compiles a tree without variables into a tree of method handles that mirrors its exact shape and operators.
+     * The supplier returns the same value as {@link #evaluate(BinaryTree)}.
+     */
+    public static <T extends Number> DoubleSupplier compile(BinaryTree<T> tree) {
+        ToDoubleFunction<double[]> compiled = compile(tree, new String[0]);
+        double[] noBindings = new double[0];
+        return () -> compiled.applyAsDouble(noBindings);
+    }
+
+    /**
+     * Compiles a tree like {@link #compile(BinaryTree)}, but the returned function reads the value of the
+     * {@link Variable} named <code>variables[i]</code> from index <code>i</code> of its argument.
+     * <p>
+     * Every leaf, variable and operator becomes a method handle bound to its constant, slot or <code>Operator</code>,
+     * combined with <code>MethodHandles.filterArguments</code>, so the handles of one tree are used by no other tree.
+     * When the returned function is a constant to the JIT (for example, held in a <code>static final</code> field),
+     * HotSpot can fold the whole handle tree and inline it, up to its inlining depth limit. Trees deeper than
+     * {@link #MAX_HANDLE_DEPTH}, which could not be inlined and whose nested handles could overflow the stack when
+     * invoked, are compiled into a {@link PostfixProgram} instead.
+     *
+     * @throws IllegalArgumentException if a variable of the tree is not in <code>variables</code>.
+     */
+    public static <T extends Number> ToDoubleFunction<double[]> compile(BinaryTree<T> tree, String... variables) {
+        boolean integral = PostfixProgram.isIntegral(tree);
+        if (tree.depth() > MAX_HANDLE_DEPTH) {
+            PostfixProgram program = PostfixProgram.compile(tree, variables);
+            // the program's own stack is not safe to share between threads, so each thread gets one of its own
+            ThreadLocal<double[]> stacks = ThreadLocal.withInitial(() -> new double[program.maxStackDepth()]);
+            return bindings -> program.evaluate(stacks.get(), bindings);
+        }
+
+        MethodHandle handle = handleOf(tree, integral, Arrays.asList(variables));
+        return bindings -> {
+            try {
+                return (double) handle.invokeExact(bindings);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new AssertionError(e); // none of the handles throws a checked exception
+            }
+        };
+    }
+
+    /**
+     * Builds the <code>(double[]) double</code> handle of <code>root</code> bottom-up with an explicit post-order
+     * stack, like {@link #evaluateIterative(BinaryTree)}, with handles in place of values.
+     */
+    private static MethodHandle handleOf(BinaryTree<?> root, boolean integral, List<String> variables) {
+        BinaryTree<?>[] pending = new BinaryTree<?>[16];
+        boolean[] expanded = new boolean[16];
+        MethodHandle[] handles = new MethodHandle[16];
+        int top = 0;
+        int sp = 0;
+        pending[top++] = root;
+
+        while (top > 0) {
+            BinaryTree<?> tree = pending[--top];
+            MethodHandle handle;
+            if (PostfixProgram.isLeaf(tree)) {
+                handle = MethodHandles.dropArguments(
+                        MethodHandles.constant(double.class, PostfixProgram.valueOf(tree)), 0, double[].class);
+            } else if (tree instanceof Variable) {
+                String name = ((Variable<?>) tree).getName();
+                int slot = variables.indexOf(name);
+                if (slot < 0) throw new IllegalArgumentException("unbound variable: " + name);
+                handle = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(double[].class), 1, slot);
+            } else if (!(tree instanceof Node)) {
+                throw new IllegalArgumentException("invalid tree type");
+            } else if (expanded[top]) {
+                MethodHandle right = handles[--sp];
+                MethodHandle left = handles[--sp];
+                MethodHandle operation = OPERATIONS[((Node<?>) tree).getOperator().ordinal()];
+                if (integral) operation = MethodHandles.filterReturnValue(operation, TRUNCATE);
+                // (double[], double[]) double, with both arguments then fed from the one bindings array
+                handle = MethodHandles.permuteArguments(MethodHandles.filterArguments(operation, 0, left, right),
+                        BINDINGS_TO_DOUBLE, 0, 0);
+            } else {
+                Node<?> node = ((Node<?>) tree);
+                if (top + 3 > pending.length) {
+                    pending = Arrays.copyOf(pending, 2 * pending.length);
+                    expanded = Arrays.copyOf(expanded, pending.length);
+                }
+                pending[top] = node;
+                expanded[top++] = true;
+                pending[top] = node.getRight();
+                expanded[top++] = false;
+                pending[top] = node.getLeft();
+                expanded[top++] = false;
+                continue;
+            }
+            if (sp == handles.length) handles = Arrays.copyOf(handles, 2 * sp);
+            handles[sp++] = handle;
         }
-        if (intLeaf) {
-            return new Leaf<>(((T) new Integer(resultVal.intValue()))); // T is Integer
-        } else return new Leaf<>((T) resultVal); // T is Double
+        return handles[0];
+    }
+
+    private static double truncate(double value) {
+        return (int) value;
+    }
+
+    /**
+     * Evaluates an integer tree entirely in <code>int</code> arithmetic. Unlike {@link #evaluate(BinaryTree)}, no
+     * intermediate result passes through <code>double</code>, and <code>DIVIDE</code> is Java integer division
+     * (including the <code>ArithmeticException</code> on division by zero). Like
+     * {@link #evaluateIterative(BinaryTree)}, it does not recurse.
+     */
+    public static int evaluateInt(BinaryTree<Integer> root) {
+        // the same explicit post-order walk as evaluateIterative, on an int operand stack
+        BinaryTree<?>[] pending = new BinaryTree<?>[16];
+        boolean[] expanded = new boolean[16];
+        int[] values = new int[16];
+        int top = 0;
+        int sp = 0;
+        pending[top++] = root;
+
+        while (top > 0) {
+            BinaryTree<?> tree = pending[--top];
+            if (tree instanceof IntLeaf || tree instanceof Leaf) {
+                if (sp == values.length) values = Arrays.copyOf(values, 2 * sp);
+                values[sp++] = tree instanceof IntLeaf ? ((IntLeaf) tree).getValue()
+                                                       : (Integer) ((Leaf<?>) tree).getValue();
+                continue;
+            }
+            if (!(tree instanceof Node)) throw new IllegalArgumentException("invalid tree type");
+            Node<?> node = ((Node<?>) tree);
+
+            if (expanded[top]) {
+                int right = values[--sp];
+                values[sp - 1] = node.getOperator().applyAsInt(values[sp - 1], right);
+                continue;
+            }
+
+            if (top + 3 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+                expanded = Arrays.copyOf(expanded, pending.length);
+            }
+            pending[top] = node;
+            expanded[top++] = true;
+            pending[top] = node.getRight();
+            expanded[top++] = false;
+            pending[top] = node.getLeft();
+            expanded[top++] = false;
+        }
+        return values[0];
+    }
+
+    /**
+     * Evaluates a floating-point tree entirely in <code>double</code> arithmetic, without recursion.
+     */
+    public static double evaluateDouble(BinaryTree<Double> tree) {
+        return evaluateIterative(tree, false, null);
+    }
+
+    /**
+     * Evaluates the same expression over many variable bindings at once. Row <code>i</code> binds every
+     * {@link Variable} to <code>columns.get(name)[i]</code>, and its result (as {@link #evaluate(BinaryTree)} would
+     * compute it) is written to <code>out[i]</code>. The work is done one operator at a time over whole columns.
+     *
+     * @return <code>out</code>
+     * @throws IllegalArgumentException before any row is evaluated, if a variable of the tree has no column or its
+     *                                  column is shorter than <code>out</code>.
+     */
+    public static <T extends Number> double[] evaluateBatch(BinaryTree<T> tree, Map<String, double[]> columns,
+                                                            double[] out) {
+        PostfixProgram program = toPostfix(tree);
+        String[] variables = program.variables();
+        checkBindings(variables, columns);
+        double[][] bound = new double[variables.length][];
+        for (int i = 0; i < variables.length; i++) bound[i] = columns.get(variables[i]);
+        return program.evaluateBatch(bound, out);
+    }
+
+    /**
+     * The <code>int</code> counterpart of {@link #evaluateBatch(BinaryTree, Map, double[])}, with the semantics of
+     * {@link #evaluateInt(BinaryTree)}.
+     *
+     * @return <code>out</code>
+     */
+    public static int[] evaluateBatchInt(BinaryTree<Integer> tree, Map<String, int[]> columns, int[] out) {
+        PostfixProgram program = toPostfix(tree);
+        String[] variables = program.variables();
+        checkBindings(variables, columns);
+        int[][] bound = new int[variables.length][];
+        for (int i = 0; i < variables.length; i++) bound[i] = columns.get(variables[i]);
+        return program.evaluateBatch(bound, out);
+    }
+
+    /**
+     * Checks that every variable of a tree is bound to a column, reporting all the missing ones at once.
+     */
+    private static void checkBindings(String[] variables, Map<String, ?> columns) {
+        List<String> missing = new ArrayList<>();
+        for (String variable : variables) if (columns.get(variable) == null) missing.add(variable);
+        if (!missing.isEmpty()) throw new IllegalArgumentException("no columns for variables " + missing);
     }
 
-    private static <T extends Number> T evaluateLeaf(Leaf<T> leaf) {
-        return leaf.getValue();
+    /**
+     * Evaluates a tree that may share subtrees (for example one built by {@link ExpressionInterner}), computing each
+     * distinct subexpression only once. The result is the same as {@link #evaluate(BinaryTree)}.
+     */
+    public static <T extends Number> double evaluateShared(BinaryTree<T> tree) {
+        return evaluateShared(tree, PostfixProgram.isIntegral(tree), new IdentityHashMap<>());
+    }
+
+    private static double evaluateShared(BinaryTree<?> root, boolean integral, Map<BinaryTree<?>, Double> memo) {
+        if (PostfixProgram.isLeaf(root)) return PostfixProgram.valueOf(root);
+        // nodes whose value is not yet known; a node stays until both of its children have values
+        List<BinaryTree<?>> pending = new ArrayList<>();
+        pending.add(root);
+
+        while (!pending.isEmpty()) {
+            BinaryTree<?> tree = pending.get(pending.size() - 1);
+            if (!(tree instanceof Node)) throw new IllegalArgumentException("invalid tree type");
+            if (memo.containsKey(tree)) {
+                pending.remove(pending.size() - 1);
+                continue;
+            }
+            Node<?> node = ((Node<?>) tree);
+            Double left = sharedValueOf(node.getLeft(), memo);
+            Double right = sharedValueOf(node.getRight(), memo);
+            if (left == null || right == null) {
+                if (right == null) pending.add(node.getRight());
+                if (left == null) pending.add(node.getLeft());
+                continue;
+            }
+            pending.remove(pending.size() - 1);
+            double result = node.getOperator().applyAsDouble(left, right);
+            if (integral) result = (int) result;
+            memo.put(tree, result);
+        }
+        return memo.get(root);
+    }
+
+    /**
+     * @return the value of a leaf, the memoised value of a node, or <code>null</code> if the node is not done yet.
+     */
+    private static Double sharedValueOf(BinaryTree<?> tree, Map<BinaryTree<?>, Double> memo) {
+        if (PostfixProgram.isLeaf(tree)) return PostfixProgram.valueOf(tree);
+        return memo.get(tree);
+    }
+
+    /**
+     * Evaluates the tree on the common fork-join pool, splitting the left and right subtrees of every node with more
+     * than {@link #PARALLEL_THRESHOLD} nodes into separate tasks. The result is the same as
+     * {@link #evaluate(BinaryTree)}.
+     */
+    public static <T extends Number> double evaluateParallel(BinaryTree<T> tree) {
+        return evaluateParallel(tree, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Like {@link #evaluateParallel(BinaryTree)}, but subtrees of at most <code>threshold</code> nodes are evaluated
+     * sequentially.
+     */
+    public static <T extends Number> double evaluateParallel(BinaryTree<T> tree, long threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive");
+        return ForkJoinPool.commonPool().invoke(new EvaluationTask(tree, PostfixProgram.isIntegral(tree), threshold));
+    }
+
+    private static final class EvaluationTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final BinaryTree<?> tree;
+        private final boolean integral;
+        private final long threshold;
+
+        EvaluationTask(BinaryTree<?> tree, boolean integral, long threshold) {
+            this.tree = tree;
+            this.integral = integral;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Double compute() {
+            // walk down nodes where only one side is large, so that a degenerate chain does not nest one task per
+            // level; the small sides are evaluated sequentially on the way back up
+            List<Node<?>> spine = new ArrayList<>();
+            BinaryTree<?> tree = this.tree;
+            while (tree instanceof Node && tree.size() > threshold) {
+                Node<?> node = ((Node<?>) tree);
+                boolean largeLeft = node.getLeft().size() > threshold;
+                if (largeLeft == node.getRight().size() > threshold) break;
+                spine.add(node);
+                tree = largeLeft ? node.getLeft() : node.getRight();
+            }
+
+            double value;
+            if (tree instanceof Node && ((Node<?>) tree).getLeft().size() > threshold) {
+                Node<?> node = ((Node<?>) tree);
+                EvaluationTask left = new EvaluationTask(node.getLeft(), integral, threshold);
+                left.fork();
+                double right = new EvaluationTask(node.getRight(), integral, threshold).compute();
+                value = apply(node.getOperator(), left.join(), right);
+            } else value = evaluateIterative(tree, integral, null);
+
+            for (int i = spine.size() - 1; i >= 0; i--) {
+                Node<?> node = spine.get(i);
+                if (node.getLeft().size() > threshold)
+                    value = apply(node.getOperator(), value, evaluateIterative(node.getRight(), integral, null));
+                else value = apply(node.getOperator(), evaluateIterative(node.getLeft(), integral, null), value);
+            }
+            return value;
+        }
+
+        private double apply(Operator operator, double left, double right) {
+            double result = operator.applyAsDouble(left, right);
+            return integral ? (int) result : result;
+        }
     }
 
     public static void main(String[] args) {
@@ -80,5 +469,187 @@ class ArithmeticExpression {
         double thirdResult = evaluate(thirdTree);
         System.out.println("Result of third expression: " + thirdResult);
         // it is ok if the output is 2.5 in this third test
+
+        checkParser();
+        checkStore();
+        checkOptimize();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    /**
+     * The parser must group each expression exactly as its fully parenthesised form, reject malformed text at the
+     * offset where it goes wrong, read the printed form of any tree back as an equal tree, and keep no recursion
+     * that deep nesting could overflow.
+     */
+    private static void checkParser() {
+        String[][] groupings = {
+                {"2 + 3 * 4", "2 + (3 * 4)"},
+                {"1 - 2 - 3", "(1 - 2) - 3"},
+                {"8 / 4 / 2 * x", "((8 / 4) / 2) * x"},
+                {"-(1 + 2) * 3", "(-1 * (1 + 2)) * 3"},
+                {"2 * -3", "2 * (-3)"},
+                {"- -2", "-1 * (-2)"},
+                {"1.5e2 - .5", "150 - 0.5"}
+        };
+        for (String[] grouping : groupings)
+            check(ExpressionParser.parse(grouping[0]).equals(ExpressionParser.parse(grouping[1])),
+                  grouping[0] + " is not grouped as " + grouping[1]);
+
+        String[][] errors = {
+                {"", "unexpected end of expression at offset 0"},
+                {"1 +", "unexpected end of expression at offset 3"},
+                {"(1", "expected ')' at offset 2"},
+                {"1)", "unexpected ')' at offset 1"},
+                {"1 2", "unexpected '2' at offset 2"},
+                {"* 1", "unexpected '*' at offset 0"}
+        };
+        for (String[] error : errors) {
+            String message = null;
+            try {
+                ExpressionParser.parse(error[0]);
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            check(error[1].equals(message), "'" + error[0] + "': expected \"" + error[1] + "\" but got " + message);
+        }
+
+        Random random = new Random(7);
+        Supplier<BinaryTree<Double>> leaves = () -> new DoubleLeaf((random.nextInt(2001) - 1000) / 8.0);
+        for (int i = 0; i < 1_000; i++) {
+            BinaryTree<Double> tree = randomTree(random, 1 + random.nextInt(6), leaves);
+            String text = textOf(tree, new StringBuilder()).toString();
+            check(ExpressionParser.parse(text).equals(tree), text + " does not read back as the tree it came from");
+        }
+
+        int depth = 100_000;
+        StringBuilder nested = new StringBuilder(4 * depth);
+        for (int i = 0; i < depth; i++) nested.append("-(");
+        nested.append('1');
+        for (int i = 0; i < depth; i++) nested.append(')');
+        check(evaluateIterative(ExpressionParser.parse(nested)) == 1, "negating 1 an even number of times");
+    }
+
+    /**
+     * Stores a mix of integer and double trees, then walks each stored tree through its child indices alongside the
+     * tree in memory: every node must be inside its tree's range after its children, carry the right opcode or leaf
+     * value, and evaluate as a subtree to what the matching subtree does in memory.
+     */
+    private static void checkStore() {
+        Random random = new Random(10);
+        Supplier<BinaryTree<Integer>> intLeaves = () -> new IntLeaf(random.nextInt(201) - 100);
+        Supplier<BinaryTree<Double>> doubleLeaves = () -> new DoubleLeaf((random.nextInt(2001) - 1000) / 8.0);
+        List<BinaryTree<?>> trees = new ArrayList<>();
+        trees.add(new IntLeaf(42)); // a tree with no operator
+        for (int i = 0; i < 200; i++) {
+            int depth = 1 + random.nextInt(8);
+            if (random.nextBoolean()) trees.add(randomTree(random, depth, intLeaves));
+            else trees.add(randomTree(random, depth, doubleLeaves));
+        }
+        try {
+            Path file = Files.createTempFile("expressions", ".store");
+            try {
+                ExpressionStore.write(file, trees);
+                ExpressionStore store = ExpressionStore.open(file);
+                check(store.treeCount() == trees.size(), "stored " + store.treeCount() + " trees");
+                for (int t = 0; t < trees.size(); t++) {
+                    int first = store.treeStart(t);
+                    int root = store.treeStart(t + 1) - 1;
+                    check(Double.compare(store.evaluate(t), evaluateIterative(trees.get(t))) == 0,
+                          "tree " + t + " evaluates differently");
+
+                    List<BinaryTree<?>> pending = new ArrayList<>();
+                    List<Integer> indices = new ArrayList<>();
+                    pending.add(trees.get(t));
+                    indices.add(root);
+                    while (!pending.isEmpty()) {
+                        BinaryTree<?> tree = pending.remove(pending.size() - 1);
+                        int index = indices.remove(indices.size() - 1);
+                        String where = "node " + index + " of tree " + t;
+                        check(index >= first && index <= root, where + " is outside its tree");
+                        check(Double.compare(store.evaluateSubtree(index), evaluateIterative(tree)) == 0,
+                              where + " evaluates differently as a subtree");
+                        if (PostfixProgram.isLeaf(tree)) {
+                            check(store.opcode(index) == PostfixProgram.PUSH
+                                          && store.value(index) == PostfixProgram.valueOf(tree),
+                                  where + " is not the leaf " + PostfixProgram.valueOf(tree));
+                            continue;
+                        }
+                        Node<?> node = (Node<?>) tree;
+                        check(store.opcode(index) == PostfixProgram.opcodeOf(node.getOperator()),
+                              where + " is not " + node.getOperator());
+                        check(store.left(index) < store.right(index) && store.right(index) < index,
+                              where + " does not follow its children in post-order");
+                        pending.add(node.getLeft());
+                        indices.add(store.left(index));
+                        pending.add(node.getRight());
+                        indices.add(store.right(index));
+                    }
+                }
+
+                // a tree that cannot be stored fails the write, which must leave the previous store in place
+                try {
+                    ExpressionStore.write(file, Arrays.asList(new IntLeaf(1), new Variable<>("x", Integer.class)));
+                    check(false, "stored a variable");
+                } catch (IllegalArgumentException expected) {
+                    // cannot store tree type Variable
+                }
+                check(ExpressionStore.open(file).treeCount() == trees.size(), "a failed write replaced the store");
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Folding constants must not change what <code>evaluateInt</code> returns, even where the int arithmetic wraps
+     * around, and must leave a division by zero for <code>evaluateInt</code> to throw.
+     */
+    private static void checkOptimize() {
+        ExpressionInterner<Integer> interner = new ExpressionInterner<>();
+        // (MAX_VALUE + 1) * 2 - MIN_VALUE / -1 is 0 - MIN_VALUE = MIN_VALUE in int arithmetic, but saturating each
+        // step at the int range would give MAX_VALUE - MAX_VALUE = 0
+        BinaryTree<Integer> overflowing = new Node<>(Operator.SUBTRACT,
+                new Node<>(Operator.MULTIPLY,
+                        new Node<>(Operator.ADD, new IntLeaf(Integer.MAX_VALUE), new IntLeaf(1)),
+                        new IntLeaf(2)),
+                new Node<>(Operator.DIVIDE, new IntLeaf(Integer.MIN_VALUE), new IntLeaf(-1)));
+        BinaryTree<Integer> folded = interner.optimize(overflowing);
+        check(folded instanceof IntLeaf, "not folded to a constant: " + folded);
+        check(evaluateInt(folded) == evaluateInt(overflowing),
+              "optimize changed evaluateInt from " + evaluateInt(overflowing) + " to " + evaluateInt(folded));
+
+        BinaryTree<Integer> zero = new Node<>(Operator.SUBTRACT, new IntLeaf(2), new IntLeaf(2));
+        BinaryTree<Integer> divisionByZero = interner.optimize(new Node<>(Operator.DIVIDE, new IntLeaf(1), zero));
+        try {
+            evaluateInt(divisionByZero);
+            check(false, "division by zero was folded away: " + divisionByZero);
+        } catch (ArithmeticException expected) {
+            // still raised after optimizing
+        }
+    }
+
+    /**
+     * @return a random tree of at most the given depth, with leaves from <code>leaves</code>.
+     */
+    private static <T extends Number> BinaryTree<T> randomTree(Random random, int depth,
+                                                               Supplier<BinaryTree<T>> leaves) {
+        if (depth == 1 || random.nextInt(4) == 0) return leaves.get();
+        Operator operator = Operator.values()[random.nextInt(Operator.values().length)];
+        return new Node<>(operator, randomTree(random, depth - 1, leaves), randomTree(random, depth - 1, leaves));
+    }
+
+    /**
+     * Appends <code>tree</code> as a fully parenthesised infix expression.
+     */
+    private static StringBuilder textOf(BinaryTree<?> tree, StringBuilder sb) {
+        if (PostfixProgram.isLeaf(tree)) return sb.append(PostfixProgram.valueOf(tree));
+        Node<?> node = (Node<?>) tree;
+        textOf(node.getLeft(), sb.append('(')).append(' ').append(node.getOperator().getSymbol()).append(' ');
+        return textOf(node.getRight(), sb).append(')');
     }
 }
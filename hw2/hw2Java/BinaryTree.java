@@ -1,2 +1,15 @@
 class BinaryTree<T extends Number> {
+    /**
+     * @return the number of nodes in this tree, counting a shared subtree once for every place it occurs.
+     */
+    long size() {
+        return 1;
+    }
+
+    /**
+     * @return the number of nodes on the longest path from the root of this tree to a leaf.
+     */
+    int depth() {
+        return 1;
+    }
 }
@@ -7,6 +7,10 @@ class Circle implements Shape {
         this.radius = radius;
     }
 
+    protected double getRadius() {
+        return radius;
+    }
+
     @Override
     public Point center() {
         return center;
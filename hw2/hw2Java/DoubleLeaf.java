@@ -0,0 +1,26 @@
+/**
+ * A leaf of a floating-point expression tree that stores its value as a primitive <code>double</code>.
+ */
+class DoubleLeaf extends BinaryTree<Double> {
+    private final double value;
+
+    public DoubleLeaf(double value) {
+        this.value = value;
+    }
+
+    protected double getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoubleLeaf)) return false;
+        return Double.compare(value, ((DoubleLeaf) o).value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+}
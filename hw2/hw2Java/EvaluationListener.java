@@ -0,0 +1,24 @@
+/**
+ * Observes evaluations performed by <code>ArithmeticExpression.evaluate</code>. Every method does nothing by default,
+ * so implementations only override the events they care about. A listener may be called from several threads at
+ * once.
+ */
+interface EvaluationListener {
+    /**
+     * Called once for every operator applied, with its operands and result.
+     */
+    default void onOperation(Operator operator, double left, double right, double result) {
+    }
+
+    /**
+     * Called once per evaluation, before it starts, with the shape of the tree being evaluated.
+     */
+    default void onTree(long nodes, int depth) {
+    }
+
+    /**
+     * Called once per evaluation, after it finishes, with the time it took.
+     */
+    default void onEvaluation(long nanos) {
+    }
+}
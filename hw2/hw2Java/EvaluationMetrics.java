@@ -0,0 +1,88 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link EvaluationListener} that aggregates per-operator invocation counts, histograms of tree size and depth,
+ * and evaluation latency. Histogram bucket <code>i</code> counts values in <code>[2^i, 2^(i+1))</code>. Safe to share
+ * between threads.
+ */
+class EvaluationMetrics implements EvaluationListener {
+    private final LongAdder[] operations = adders(Operator.values().length);
+    private final LongAdder[] nodeCounts = adders(Long.SIZE);
+    private final LongAdder[] depths = adders(Integer.SIZE);
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static int bucketOf(long value) {
+        return Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(value, 1));
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) sums[i] = adders[i].sum();
+        return sums;
+    }
+
+    @Override
+    public void onOperation(Operator operator, double left, double right, double result) {
+        operations[operator.ordinal()].increment();
+    }
+
+    @Override
+    public void onTree(long nodes, int depth) {
+        nodeCounts[bucketOf(nodes)].increment();
+        depths[bucketOf(depth)].increment();
+    }
+
+    @Override
+    public void onEvaluation(long nanos) {
+        evaluations.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long operationCount(Operator operator) {
+        return operations[operator.ordinal()].sum();
+    }
+
+    public long[] nodeCountHistogram() {
+        return sums(nodeCounts);
+    }
+
+    public long[] depthHistogram() {
+        return sums(depths);
+    }
+
+    public long evaluationCount() {
+        return evaluations.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    public double meanNanos() {
+        long count = evaluations.sum();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    public void reset() {
+        for (LongAdder adder : operations) adder.reset();
+        for (LongAdder adder : nodeCounts) adder.reset();
+        for (LongAdder adder : depths) adder.reset();
+        evaluations.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash-conses expression trees. Structurally equal subtrees that pass through the same interner come back as the
+ * same object, so a tree with repeated subexpressions becomes a DAG with one node per distinct subexpression.
+ */
+class ExpressionInterner<T extends Number> {
+    private final Map<BinaryTree<T>, BinaryTree<T>> leaves = new HashMap<>();
+    private final Map<NodeKey, Node<T>> nodes = new HashMap<>();
+
+    /**
+     * Identifies a node by its operator and its canonical children, compared by identity, so looking up a node is
+     * constant time however deep it is.
+     */
+    private static final class NodeKey {
+        private final Operator operator;
+        private final BinaryTree<?> left;
+        private final BinaryTree<?> right;
+
+        NodeKey(Operator operator, BinaryTree<?> left, BinaryTree<?> right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NodeKey)) return false;
+            NodeKey key = (NodeKey) o;
+            return operator == key.operator && left == key.left && right == key.right;
+        }
+
+        @Override
+        public int hashCode() {
+            // the same as Node.hashCode, which the children have cached
+            return 31 * (31 * operator.ordinal() + left.hashCode()) + right.hashCode();
+        }
+    }
+
+    public BinaryTree<T> leaf(T value) {
+        return intern(new Leaf<>(value));
+    }
+
+    public BinaryTree<T> variable(String name, Class<T> type) {
+        return intern(new Variable<>(name, type));
+    }
+
+    public BinaryTree<T> node(Operator operator, BinaryTree<T> left, BinaryTree<T> right) {
+        return intern(new Node<>(operator, left, right));
+    }
+
+    /**
+     * @return the canonical instance of <code>tree</code>, sharing every subtree already known to this interner.
+     */
+    public BinaryTree<T> intern(BinaryTree<T> tree) {
+        return rebuild(tree, false);
+    }
+
+    /**
+     * Interns <code>tree</code> and folds every subtree whose operands are both constants into a single leaf. The
+     * result evaluates to the same value as <code>tree</code>; integer constants are folded in <code>int</code>
+     * arithmetic, as {@link ArithmeticExpression#evaluateInt} computes them, so overflow wraps around.
+     */
+    public BinaryTree<T> optimize(BinaryTree<T> tree) {
+        return rebuild(tree, true);
+    }
+
+    /**
+     * Interns <code>root</code> bottom-up, optionally folding constants, with an explicit post-order stack. Children
+     * are made canonical before their parent is looked up, and every distinct subtree object is visited once, so the
+     * work is linear in the number of distinct objects in <code>root</code> and deep trees are safe.
+     */
+    private BinaryTree<T> rebuild(BinaryTree<T> root, boolean fold) {
+        boolean integral = fold && PostfixProgram.isIntegral(root); // only folding needs it
+        Map<BinaryTree<T>, BinaryTree<T>> done = new IdentityHashMap<>();
+        List<BinaryTree<T>> pending = new ArrayList<>();
+        pending.add(root);
+
+        while (!pending.isEmpty()) {
+            BinaryTree<T> tree = pending.get(pending.size() - 1);
+            if (done.containsKey(tree)) {
+                pending.remove(pending.size() - 1);
+                continue;
+            }
+            if (!(tree instanceof Node)) {
+                pending.remove(pending.size() - 1);
+                BinaryTree<T> canonical = leaves.putIfAbsent(tree, tree);
+                done.put(tree, canonical != null ? canonical : tree);
+                continue;
+            }
+            Node<T> node = (Node<T>) tree;
+            if (!fold && nodes.get(keyOf(node)) == node) {
+                // already canonical, and so are all of its subtrees
+                pending.remove(pending.size() - 1);
+                done.put(node, node);
+                continue;
+            }
+            BinaryTree<T> left = done.get(node.getLeft());
+            BinaryTree<T> right = done.get(node.getRight());
+            if (left == null || right == null) {
+                // come back to this node after its children; the left child is handled first
+                if (right == null) pending.add(node.getRight());
+                if (left == null) pending.add(node.getLeft());
+                continue;
+            }
+            pending.remove(pending.size() - 1);
+
+            BinaryTree<T> result = fold ? foldConstants(node.getOperator(), left, right, integral) : null;
+            if (result == null) {
+                NodeKey key = new NodeKey(node.getOperator(), left, right);
+                Node<T> canonical = nodes.get(key);
+                if (canonical == null) {
+                    canonical = left == node.getLeft() && right == node.getRight()
+                            ? node : new Node<>(node.getOperator(), left, right);
+                    nodes.put(key, canonical);
+                }
+                result = canonical;
+            }
+            done.put(node, result);
+        }
+        return done.get(root);
+    }
+
+    private static NodeKey keyOf(Node<?> node) {
+        return new NodeKey(node.getOperator(), node.getLeft(), node.getRight());
+    }
+
+    /**
+     * @return the folded leaf, or <code>null</code> if the operands are not both constants or folding would hide an
+     * error that evaluation is expected to raise.
+     */
+    @SuppressWarnings("unchecked")
+    private BinaryTree<T> foldConstants(Operator operator, BinaryTree<T> left, BinaryTree<T> right, boolean integral) {
+        if (!PostfixProgram.isLeaf(left) || !PostfixProgram.isLeaf(right)) return null;
+        boolean intLeaves = left instanceof IntLeaf && right instanceof IntLeaf;
+        if (intLeaves || integral) {
+            int r = (int) PostfixProgram.valueOf(right);
+            if (operator == Operator.DIVIDE && r == 0) return null; // evaluateInt throws here
+            // same arithmetic as ArithmeticExpression.evaluateInt, which wraps around on overflow
+            int value = operator.applyAsInt((int) PostfixProgram.valueOf(left), r);
+            if (intLeaves) return intern((BinaryTree<T>) (BinaryTree<?>) new IntLeaf(value));
+            return leaf((T) Integer.valueOf(value));
+        }
+        if (left instanceof DoubleLeaf && right instanceof DoubleLeaf) {
+            double value = operator.applyAsDouble(((DoubleLeaf) left).getValue(), ((DoubleLeaf) right).getValue());
+            return intern((BinaryTree<T>) (BinaryTree<?>) new DoubleLeaf(value));
+        }
+
+        // same arithmetic as ArithmeticExpression.evaluate
+        double value = operator.applyAsDouble(PostfixProgram.valueOf(left), PostfixProgram.valueOf(right));
+        return leaf((T) Double.valueOf(value));
+    }
+
+    /**
+     * @return the number of distinct subexpressions held by this interner.
+     */
+    public int size() {
+        return leaves.size() + nodes.size();
+    }
+}
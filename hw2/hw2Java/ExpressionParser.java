@@ -0,0 +1,389 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses infix expressions such as <code>(1.5 + 0.75) - 0.25</code> into trees. The parser reads bytes directly out of
+ * a <code>ByteBuffer</code>, so expression files can be memory-mapped and parsed without copying them into strings.
+ * <p>
+ * Grammar: the binary operators are the {@link Operator} symbols. <code>*</code> and <code>/</code> bind tighter than
+ * <code>+</code> and <code>-</code>, all four are left associative, and parentheses group. Operands are decimal
+ * numbers (optionally negative) or identifiers, which become {@link Variable}s. A unary minus may precede any operand,
+ * including a parenthesised one, and binds tighter than every binary operator.
+ */
+class ExpressionParser {
+    /**
+     * Receives the result of every non-blank line of an expression file. Line numbers start at 1.
+     */
+    interface ResultConsumer {
+        void accept(long line, double result);
+    }
+
+    // at most this many bytes of the file are mapped at a time by one worker
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    // powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private static final Operator[] OPERATORS = Operator.values();
+    // operators indexed by their one-character symbol
+    private static final Operator[] OPERATORS_BY_SYMBOL = new Operator[128];
+    // operator stack markers besides Operator ordinals
+    private static final int OPEN = -1;
+    private static final int NEGATE = -2;
+
+    static {
+        for (Operator operator : OPERATORS) {
+            String symbol = operator.getSymbol();
+            if (symbol.length() != 1 || symbol.charAt(0) >= OPERATORS_BY_SYMBOL.length)
+                throw new ExceptionInInitializerError("operator symbol is not one ASCII character: " + symbol);
+            OPERATORS_BY_SYMBOL[symbol.charAt(0)] = operator;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private int pos;
+
+    private ExpressionParser(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.pos = from;
+        this.end = to;
+    }
+
+    public static BinaryTree<Double> parse(CharSequence text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        return parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Parses the expression held in bytes <code>from</code> (inclusive) to <code>to</code> (exclusive) of
+     * <code>buffer</code>. The buffer's position and limit are not changed.
+     */
+    public static BinaryTree<Double> parse(ByteBuffer buffer, int from, int to) {
+        ExpressionParser parser = new ExpressionParser(buffer, from, to);
+        BinaryTree<Double> tree = parser.expression();
+        parser.skipWhitespace();
+        if (parser.pos < to) throw parser.error("unexpected '" + (char) buffer.get(parser.pos) + "'");
+        return tree;
+    }
+
+    /**
+     * Parses and evaluates every line of <code>file</code> on the calling thread.
+     */
+    public static void evaluateFile(Path file, ResultConsumer consumer) throws IOException {
+        evaluateFile(file, 1, consumer);
+    }
+
+    /**
+     * Parses and evaluates every line of <code>file</code>, splitting the file at line boundaries into
+     * <code>threads</code> segments that are processed concurrently. Each segment is memory-mapped a window at a
+     * time, so memory use does not grow with the file size. Results within a segment arrive in line order, but
+     * segments interleave, so <code>consumer</code> must be thread-safe when <code>threads &gt; 1</code>.
+     */
+    public static void evaluateFile(Path file, int threads, ResultConsumer consumer) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = segmentBounds(channel, threads);
+            int segments = bounds.length - 1;
+            if (segments == 1) {
+                scan(channel, bounds[0], bounds[1], 1, consumer);
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                // first pass: count lines per segment so every segment knows its first line number
+                List<Future<Long>> counts = new ArrayList<>();
+                for (int i = 0; i < segments; i++) {
+                    long from = bounds[i], to = bounds[i + 1];
+                    counts.add(executor.submit(() -> scan(channel, from, to, 1, null)));
+                }
+                List<Future<Long>> scans = new ArrayList<>();
+                long firstLine = 1;
+                for (int i = 0; i < segments; i++) {
+                    long from = bounds[i], to = bounds[i + 1], line = firstLine;
+                    scans.add(executor.submit(() -> scan(channel, from, to, line, consumer)));
+                    firstLine += await(counts.get(i));
+                }
+                for (Future<Long> scan : scans) await(scan);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static long await(Future<Long> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while evaluating", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Splits the file into at most <code>parts</code> ranges, each starting at the beginning of a line.
+     */
+    private static long[] segmentBounds(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer one = ByteBuffer.allocate(1);
+        for (int i = 1; i < parts; i++) {
+            long at = Math.max(size * i / parts, bounds.get(bounds.size() - 1));
+            // advance to just past the next newline
+            while (at < size) {
+                one.clear();
+                channel.read(one, at++);
+                if (one.get(0) == '\n') break;
+            }
+            if (at >= size) break;
+            if (at > bounds.get(bounds.size() - 1)) bounds.add(at);
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    /**
+     * Walks the lines in bytes <code>from</code> to <code>to</code> of the file, evaluating each one if
+     * <code>consumer</code> is not <code>null</code>.
+     *
+     * @return the number of lines in the range
+     */
+    private static long scan(FileChannel channel, long from, long to, long firstLine, ResultConsumer consumer) {
+        try {
+            long line = firstLine;
+            long at = from;
+            int window = WINDOW_SIZE;
+            while (at < to) {
+                int length = (int) Math.min(window, to - at);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, at, length);
+                // only whole lines are handled per window; the last partial line starts the next window
+                int limit = length;
+                if (at + length < to) {
+                    while (limit > 0 && mapped.get(limit - 1) != '\n') limit--;
+                    if (limit == 0) {
+                        if (window == Integer.MAX_VALUE)
+                            throw new IllegalArgumentException("line " + line + " is too long");
+                        window = (int) Math.min(Integer.MAX_VALUE, 2L * window);
+                        continue;
+                    }
+                }
+                int start = 0;
+                for (int i = 0; i <= limit; i++) {
+                    if (i < limit && mapped.get(i) != '\n') continue;
+                    if (i == limit && (i == start || at + limit < to)) break; // no trailing partial line here
+                    if (consumer != null && !isBlank(mapped, start, i)) {
+                        double result;
+                        try {
+                            result = ArithmeticExpression.evaluateDouble(parse(mapped, start, i));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("line " + line + ": " + e.getMessage(), e);
+                        }
+                        consumer.accept(line, result);
+                    }
+                    line++;
+                    start = i + 1;
+                }
+                at += limit;
+            }
+            return line - firstLine;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) if (!isWhitespace(buffer.get(i))) return false;
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b == '_';
+    }
+
+    /**
+     * Parses an expression with the shunting-yard algorithm: operands and pending operators are kept on explicit
+     * stacks, so nesting depth is limited only by memory. Stops at the first byte that cannot continue the
+     * expression.
+     */
+    private BinaryTree<Double> expression() {
+        List<BinaryTree<Double>> operands = new ArrayList<>();
+        int[] operators = new int[16]; // Operator ordinals, OPEN or NEGATE
+        int top = 0;
+        int open = 0; // OPEN markers on the stack
+        boolean expectOperand = true;
+
+        while (true) {
+            byte b = peek();
+            if (expectOperand) {
+                if (b == '(' || b == '-' && !startsNumber(pos + 1)) {
+                    if (top == operators.length) operators = Arrays.copyOf(operators, 2 * top);
+                    operators[top++] = b == '(' ? OPEN : NEGATE;
+                    if (b == '(') open++;
+                    pos++;
+                    continue;
+                }
+                if (isDigit(b) || b == '.' || b == '-') operands.add(new DoubleLeaf(number()));
+                else if (isLetter(b)) operands.add(variable());
+                else throw error(pos < end ? "unexpected '" + (char) b + "'" : "unexpected end of expression");
+                top = negate(operands, operators, top);
+                expectOperand = false;
+                continue;
+            }
+
+            Operator operator = operatorOf(b);
+            if (operator != null) {
+                while (top > 0 && operators[top - 1] >= 0
+                        && precedenceOf(OPERATORS[operators[top - 1]]) >= precedenceOf(operator))
+                    reduce(operands, OPERATORS[operators[--top]]);
+                if (top == operators.length) operators = Arrays.copyOf(operators, 2 * top);
+                operators[top++] = operator.ordinal();
+                pos++;
+                expectOperand = true;
+            } else if (b == ')' && open > 0) {
+                while (operators[top - 1] != OPEN) reduce(operands, OPERATORS[operators[--top]]);
+                top--;
+                open--;
+                pos++;
+                top = negate(operands, operators, top);
+            } else break;
+        }
+
+        if (open > 0) throw error("expected ')'");
+        while (top > 0) reduce(operands, OPERATORS[operators[--top]]);
+        return operands.get(0);
+    }
+
+    private static void reduce(List<BinaryTree<Double>> operands, Operator operator) {
+        BinaryTree<Double> right = operands.remove(operands.size() - 1);
+        BinaryTree<Double> left = operands.remove(operands.size() - 1);
+        operands.add(new Node<>(operator, left, right));
+    }
+
+    /**
+     * Applies the unary minuses that were waiting for the operand just completed. The tree has no negation node, so
+     * <code>-e</code> becomes <code>-1 * e</code>, which negates exactly, including zero and NaN.
+     *
+     * @return the new top of the operator stack
+     */
+    private static int negate(List<BinaryTree<Double>> operands, int[] operators, int top) {
+        while (top > 0 && operators[top - 1] == NEGATE) {
+            top--;
+            BinaryTree<Double> operand = operands.remove(operands.size() - 1);
+            operands.add(new Node<>(Operator.MULTIPLY, new DoubleLeaf(-1), operand));
+        }
+        return top;
+    }
+
+    private static Operator operatorOf(byte b) {
+        return b >= 0 && b < OPERATORS_BY_SYMBOL.length ? OPERATORS_BY_SYMBOL[b] : null;
+    }
+
+    private static int precedenceOf(Operator operator) {
+        return operator == Operator.MULTIPLY || operator == Operator.DIVIDE ? 2 : 1;
+    }
+
+    /**
+     * @return whether a numeric literal starts at <code>at</code>, so that a <code>'-'</code> just before it is the
+     * literal's sign rather than a unary minus.
+     */
+    private boolean startsNumber(int at) {
+        return at < end && (isDigit(buffer.get(at)) || buffer.get(at) == '.');
+    }
+
+    /**
+     * Parses a decimal literal. Literals with at most 15 significant digits and 22 fractional digits are converted
+     * with a single, correctly rounded division; longer ones, and ones with an exponent, fall back to
+     * <code>Double.parseDouble</code>.
+     */
+    private double number() {
+        int start = pos;
+        boolean negative = buffer.get(pos) == '-';
+        if (negative) pos++;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; pos < end; pos++) {
+            byte b = buffer.get(pos);
+            if (isDigit(b)) {
+                if (digits > 0 || b != '0') digits++;
+                mantissa = digits <= 18 ? mantissa * 10 + (b - '0') : mantissa;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else break;
+        }
+        int length = pos - start - (negative ? 1 : 0) - (fractionDigits >= 0 ? 1 : 0);
+        if (length == 0) throw error("expected a number");
+        boolean exponent = pos < end && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E');
+        if (exponent) {
+            pos++;
+            if (pos < end && (buffer.get(pos) == '+' || buffer.get(pos) == '-')) pos++;
+            if (pos == end || !isDigit(buffer.get(pos))) throw error("expected an exponent");
+            while (pos < end && isDigit(buffer.get(pos))) pos++;
+        }
+        double value;
+        if (!exponent && digits <= 15 && fractionDigits <= 22) {
+            value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        byte[] literal = new byte[pos - start];
+        for (int i = 0; i < literal.length; i++) literal[i] = buffer.get(start + i);
+        return Double.parseDouble(new String(literal, StandardCharsets.US_ASCII));
+    }
+
+    private BinaryTree<Double> variable() {
+        int start = pos;
+        while (pos < end && (isLetter(buffer.get(pos)) || isDigit(buffer.get(pos)))) pos++;
+        byte[] name = new byte[pos - start];
+        for (int i = 0; i < name.length; i++) name[i] = buffer.get(start + i);
+        return new Variable<>(new String(name, StandardCharsets.US_ASCII), Double.class);
+    }
+
+    private byte peek() {
+        skipWhitespace();
+        return pos < end ? buffer.get(pos) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(buffer.get(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
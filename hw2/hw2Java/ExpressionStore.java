@@ -0,0 +1,285 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file of expression trees in a flat struct-of-arrays layout that is evaluated directly from a memory mapping,
+ * without rebuilding any <code>Node</code> or <code>Leaf</code> objects.
+ * <p>
+ * Layout (all values big-endian):
+ * <pre>
+ * int    magic, version, treeCount, nodeCount
+ * int    treeStart[treeCount + 1]   first node of each tree; the last entry is nodeCount
+ * int    stackDepth[treeCount]      operand stack needed to evaluate each tree
+ * int    left[nodeCount]            child indices, or -1 for leaves
+ * int    right[nodeCount]
+ * double value[nodeCount]           leaf values (0 for operator nodes)
+ * byte   opcode[nodeCount]          PostfixProgram opcodes; PUSH marks a leaf
+ * byte   integral[treeCount]        1 if the tree uses integer semantics
+ * </pre>
+ * Each tree's nodes are stored in post-order, so its children always precede it and a tree can be evaluated by one
+ * forward scan. The child indices give random access to subtrees: {@link #evaluateSubtree(int)} uses them to find
+ * where a subtree starts, and {@link #left(int)} and {@link #right(int)} navigate a tree without scanning it. A
+ * single file is limited to 2 GiB, about 120 million nodes.
+ */
+class ExpressionStore {
+    private static final int MAGIC = 0x45585052; // "EXPR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer data;
+    private final int treeCount;
+    private final int nodeCount;
+    private final int stackDepthOffset;
+    private final int leftOffset;
+    private final int rightOffset;
+    private final int valueOffset;
+    private final int opcodeOffset;
+    private final int integralOffset;
+    private double[] stack = new double[16]; // reused by evaluate(int) and evaluateSubtree
+
+    private ExpressionStore(ByteBuffer data, int treeCount, int nodeCount) {
+        this.data = data;
+        this.treeCount = treeCount;
+        this.nodeCount = nodeCount;
+        this.stackDepthOffset = HEADER_SIZE + 4 * (treeCount + 1);
+        this.leftOffset = stackDepthOffset + 4 * treeCount;
+        this.rightOffset = leftOffset + 4 * nodeCount;
+        this.valueOffset = rightOffset + 4 * nodeCount;
+        this.opcodeOffset = valueOffset + 8 * nodeCount;
+        this.integralOffset = opcodeOffset + nodeCount;
+    }
+
+    private int totalSize() {
+        return integralOffset + treeCount;
+    }
+
+    /**
+     * Writes <code>trees</code> to <code>file</code>, replacing its contents. Shared subtrees are stored once per
+     * occurrence. The store is built in a temporary file next to <code>file</code> and moved into place only once it
+     * is complete, so a write that fails leaves <code>file</code> as it was.
+     */
+    public static void write(Path file, List<? extends BinaryTree<?>> trees) throws IOException {
+        long nodes = 0;
+        for (BinaryTree<?> tree : trees) nodes += tree.size();
+        long size = HEADER_SIZE + 4L * (2 * trees.size() + 1) + 17 * nodes + trees.size();
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("too many nodes for one file: " + nodes);
+
+        Path absolute = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                ExpressionStore store = new ExpressionStore(mapped, trees.size(), (int) nodes);
+                mapped.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, store.treeCount).putInt(12, store.nodeCount);
+                int next = 0;
+                for (int t = 0; t < trees.size(); t++) {
+                    mapped.putInt(HEADER_SIZE + 4 * t, next);
+                    next = store.flatten(trees.get(t), t, next);
+                }
+                mapped.putInt(HEADER_SIZE + 4 * trees.size(), next);
+                mapped.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary); // only still there if the write failed
+        }
+    }
+
+    /**
+     * Stores <code>tree</code> in post-order starting at node <code>next</code>, without recursion.
+     *
+     * @return the index after the last node written
+     */
+    private int flatten(BinaryTree<?> root, int treeIndex, int next) {
+        BinaryTree<?>[] pending = new BinaryTree<?>[16];
+        boolean[] expanded = new boolean[16];
+        int[] written = new int[16]; // indices of finished subtrees; mirrors the operand stack at evaluation
+        int top = 0;
+        int sp = 0;
+        int maxDepth = 0;
+        pending[top++] = root;
+
+        while (top > 0) {
+            BinaryTree<?> tree = pending[--top];
+            if (PostfixProgram.isLeaf(tree) || expanded[top]) {
+                int index = next++;
+                if (PostfixProgram.isLeaf(tree)) {
+                    putNode(index, PostfixProgram.PUSH, -1, -1, PostfixProgram.valueOf(tree));
+                } else {
+                    int right = written[--sp];
+                    int left = written[--sp];
+                    putNode(index, PostfixProgram.opcodeOf(((Node<?>) tree).getOperator()), left, right, 0);
+                }
+                if (sp == written.length) written = Arrays.copyOf(written, 2 * sp);
+                written[sp++] = index;
+                maxDepth = Math.max(maxDepth, sp);
+                continue;
+            }
+            if (!(tree instanceof Node))
+                throw new IllegalArgumentException("cannot store tree type " + tree.getClass().getSimpleName());
+            Node<?> node = ((Node<?>) tree);
+            if (top + 3 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+                expanded = Arrays.copyOf(expanded, pending.length);
+            }
+            pending[top] = node;
+            expanded[top++] = true;
+            pending[top] = node.getRight();
+            expanded[top++] = false;
+            pending[top] = node.getLeft();
+            expanded[top++] = false;
+        }
+        data.putInt(stackDepthOffset + 4 * treeIndex, maxDepth);
+        data.put(integralOffset + treeIndex, (byte) (PostfixProgram.isIntegral(root) ? 1 : 0));
+        return next;
+    }
+
+    private void putNode(int index, byte opcode, int left, int right, double value) {
+        data.put(opcodeOffset + index, opcode);
+        data.putInt(leftOffset + 4 * index, left);
+        data.putInt(rightOffset + 4 * index, right);
+        data.putDouble(valueOffset + 8 * index, value);
+    }
+
+    /**
+     * Maps a file written by {@link #write(Path, List)}. The mapping stays valid after the channel is closed.
+     */
+    public static ExpressionStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("not an expression store: " + file);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC) throw new IOException("not an expression store: " + file);
+            if (mapped.getInt(4) != VERSION) throw new IOException("unsupported version " + mapped.getInt(4));
+            ExpressionStore store = new ExpressionStore(mapped, mapped.getInt(8), mapped.getInt(12));
+            if (store.totalSize() != channel.size()) throw new IOException("truncated expression store: " + file);
+            return store;
+        }
+    }
+
+    public int treeCount() {
+        return treeCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the index of the first node of tree <code>tree</code>. Its root is the node just before
+     * <code>treeStart(tree + 1)</code>.
+     */
+    public int treeStart(int tree) {
+        return data.getInt(HEADER_SIZE + 4 * tree);
+    }
+
+    public byte opcode(int node) {
+        return data.get(opcodeOffset + node);
+    }
+
+    public int left(int node) {
+        return data.getInt(leftOffset + 4 * node);
+    }
+
+    public int right(int node) {
+        return data.getInt(rightOffset + 4 * node);
+    }
+
+    public double value(int node) {
+        return data.getDouble(valueOffset + 8 * node);
+    }
+
+    /**
+     * Evaluates tree <code>tree</code> straight from the mapped arrays, with the same result as
+     * <code>ArithmeticExpression.evaluate</code> on the original tree. Reuses an internal stack, so it is not safe
+     * for concurrent use; use {@link #evaluate(int, double[])} from several threads.
+     */
+    public double evaluate(int tree) {
+        int depth = data.getInt(stackDepthOffset + 4 * tree);
+        if (stack.length < depth) stack = new double[depth];
+        return evaluate(tree, stack);
+    }
+
+    public double evaluate(int tree, double[] stack) {
+        if (tree < 0 || tree >= treeCount) throw new IndexOutOfBoundsException("tree " + tree);
+        if (stack.length < data.getInt(stackDepthOffset + 4 * tree))
+            throw new IllegalArgumentException("operand stack is too small");
+        return run(treeStart(tree), treeStart(tree + 1), data.get(integralOffset + tree) != 0, stack);
+    }
+
+    /**
+     * Evaluates the subtree rooted at node <code>node</code> of any stored tree, with the semantics of the tree that
+     * contains it. A subtree's nodes are contiguous in post-order and start at its leftmost leaf, which is found by
+     * following the <code>left</code> indices down from <code>node</code>. Not safe for concurrent use, like
+     * {@link #evaluate(int)}.
+     */
+    public double evaluateSubtree(int node) {
+        if (node < 0 || node >= nodeCount) throw new IndexOutOfBoundsException("node " + node);
+        int first = node;
+        while (opcode(first) != PostfixProgram.PUSH) first = left(first);
+        int tree = treeOf(node);
+        // a subtree never needs a deeper stack than its whole tree
+        int depth = data.getInt(stackDepthOffset + 4 * tree);
+        if (stack.length < depth) stack = new double[depth];
+        return run(first, node + 1, data.get(integralOffset + tree) != 0, stack);
+    }
+
+    /**
+     * @return the index of the tree that node <code>node</code> belongs to.
+     */
+    private int treeOf(int node) {
+        int low = 0;
+        int high = treeCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (treeStart(mid) <= node) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Runs nodes <code>from</code> (inclusive) to <code>to</code> (exclusive), which must hold one whole subtree, as
+     * a postfix program.
+     */
+    private double run(int from, int to, boolean integral, double[] stack) {
+        int sp = 0;
+        for (int node = from; node < to; node++) {
+            byte op = data.get(opcodeOffset + node);
+            if (op == PostfixProgram.PUSH) {
+                stack[sp++] = data.getDouble(valueOffset + 8 * node);
+                continue;
+            }
+            double right = stack[--sp];
+            double left = stack[sp - 1];
+            double result;
+            switch (op) {
+                case PostfixProgram.ADD:
+                    result = left + right;
+                    break;
+                case PostfixProgram.SUBTRACT:
+                    result = left - right;
+                    break;
+                case PostfixProgram.MULTIPLY:
+                    result = left * right;
+                    break;
+                case PostfixProgram.DIVIDE:
+                    result = left / right;
+                    break;
+                default:
+                    throw new IllegalStateException("corrupt opcode " + op + " at node " + node);
+            }
+            stack[sp - 1] = integral ? (int) result : result;
+        }
+        return stack[0];
+    }
+}
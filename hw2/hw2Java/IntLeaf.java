@@ -0,0 +1,26 @@
+/**
+ * A leaf of an integer expression tree that stores its value as a primitive <code>int</code>.
+ */
+class IntLeaf extends BinaryTree<Integer> {
+    private final int value;
+
+    public IntLeaf(int value) {
+        this.value = value;
+    }
+
+    protected int getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntLeaf)) return false;
+        return value == ((IntLeaf) o).value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+}
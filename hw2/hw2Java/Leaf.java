@@ -8,4 +8,16 @@ class Leaf<T extends Number> extends BinaryTree<T> {
     protected T getValue() {
         return value;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Leaf)) return false;
+        return value.equals(((Leaf<?>) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
 }
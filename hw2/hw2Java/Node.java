@@ -1,12 +1,21 @@
+import java.util.ArrayList;
+import java.util.List;
+
 class Node<T extends Number> extends BinaryTree<T> {
     private final Operator operator;
     private final BinaryTree<T> left;
     private final BinaryTree<T> right;
+    private final int hash; // children are immutable, so their hashes are already cached
+    private final long size;
+    private final int depth;
 
     public Node(Operator operator, BinaryTree<T> left, BinaryTree<T> right) {
         this.operator = operator;
         this.left = left;
         this.right = right;
+        this.hash = 31 * (31 * operator.ordinal() + left.hashCode()) + right.hashCode();
+        this.size = 1 + left.size() + right.size();
+        this.depth = 1 + Math.max(left.depth(), right.depth());
     }
 
     protected Operator getOperator() {
@@ -20,4 +29,53 @@ class Node<T extends Number> extends BinaryTree<T> {
     protected BinaryTree<T> getRight() {
         return right;
     }
+
+    @Override
+    long size() {
+        return size;
+    }
+
+    @Override
+    int depth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Node)) return false;
+        Node<?> node = (Node<?>) o;
+        if (hash != node.hash || operator != node.operator) return false;
+        // interned children compare by identity, so this is constant time for hash-consed trees
+        if (left == node.left && right == node.right) return true;
+
+        // otherwise compare pairs of subtrees with an explicit stack, so that deep trees are safe
+        List<BinaryTree<?>> pending = new ArrayList<>();
+        pending.add(left);
+        pending.add(node.left);
+        pending.add(right);
+        pending.add(node.right);
+        while (!pending.isEmpty()) {
+            BinaryTree<?> b = pending.remove(pending.size() - 1);
+            BinaryTree<?> a = pending.remove(pending.size() - 1);
+            if (a == b) continue;
+            if (!(a instanceof Node) || !(b instanceof Node)) {
+                if (!a.equals(b)) return false;
+                continue;
+            }
+            Node<?> x = (Node<?>) a;
+            Node<?> y = (Node<?>) b;
+            if (x.hash != y.hash || x.operator != y.operator) return false;
+            pending.add(x.left);
+            pending.add(y.left);
+            pending.add(x.right);
+            pending.add(y.right);
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
@@ -10,4 +10,34 @@ public enum Operator {
     public String getSymbol() {
         return symbol;
     }
+
+    public int applyAsInt(int left, int right) {
+        switch (this) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    public double applyAsDouble(double left, double right) {
+        switch (this) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            default:
+                throw new AssertionError(this);
+        }
+    }
 }
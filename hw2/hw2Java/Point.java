@@ -1,25 +1,75 @@
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+/**
+ * A point with coordinates fixed to two decimal places. Each coordinate is stored as an exact count of hundredths,
+ * so rounding and the arithmetic used by the other shapes are plain integer operations.
+ */
 class Point implements Shape {
-    private final double x;
-    private final double y;
+    private final long x; // hundredths
+    private final long y;
 
     public Point(double x, double y) {
-        this.x = round(x);
-        this.y = round(y);
+        this(toHundredths(x), toHundredths(y));
     }
 
-    private static double round(double value) {
-        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    private Point(long x, long y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    static Point ofHundredths(long x, long y) {
+        return new Point(x, y);
+    }
+
+    /**
+     * Rounds to a whole number of hundredths, HALF_UP, exactly as <code>BigDecimal.setScale(2, RoundingMode.HALF_UP)
+     * </code> does on the exact binary value. The <code>BigDecimal</code> route is only taken when
+     * <code>value * 100</code> lies so close to a tie that the rounding error of the multiplication could change the
+     * outcome.
+     *
+     * @throws ArithmeticException if the value does not fit in a <code>long</code> count of hundredths
+     */
+    static long toHundredths(double value) {
+        double scaled = Math.abs(value) * 100;
+        if (scaled < 1e9) { // the product is then accurate to well within 1e-6
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (Math.abs(fraction - 0.5) > 1e-6) {
+                long hundredths = (long) floor + (fraction > 0.5 ? 1 : 0);
+                return value < 0 ? -hundredths : hundredths;
+            }
+        }
+        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @return the midpoint of two coordinates given in hundredths, rounded HALF_UP to a whole hundredth.
+     */
+    static long midpoint(long a, long b) {
+        long sum = Math.addExact(a, b);
+        // an odd sum lies exactly halfway between two hundredths, so round away from zero
+        return (sum + (sum & 1) * Long.signum(sum)) / 2;
+    }
+
+    static Point midpoint(Point a, Point b) {
+        return new Point(midpoint(a.x, b.x), midpoint(a.y, b.y));
     }
 
     // public is probably okay here
     protected double getX() {
-        return x;
+        return x / 100.0;
     }
 
     protected double getY() {
+        return y / 100.0;
+    }
+
+    protected long getXHundredths() {
+        return x;
+    }
+
+    protected long getYHundredths() {
         return y;
     }
 
@@ -33,8 +83,31 @@ class Point implements Shape {
         return 0;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Point)) return false;
+        Point point = (Point) o;
+        return x == point.x && y == point.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(x) + Long.hashCode(y);
+    }
+
     @Override
     public String toString() {
-        return String.format("(%.2f, %.2f)", x, y);
+        StringBuilder sb = new StringBuilder(16).append('(');
+        appendHundredths(sb, x).append(", ");
+        return appendHundredths(sb, y).append(')').toString();
+    }
+
+    private static StringBuilder appendHundredths(StringBuilder sb, long hundredths) {
+        long magnitude = Math.abs(hundredths);
+        if (hundredths < 0) sb.append('-');
+        sb.append(magnitude / 100).append('.');
+        if (magnitude % 100 < 10) sb.append('0');
+        return sb.append(magnitude % 100);
     }
 }
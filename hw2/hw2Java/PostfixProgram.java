@@ -0,0 +1,347 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A <code>BinaryTree</code> lowered into a flat postfix instruction array. The tree is walked once at compile time;
+ * evaluation is a single loop over the opcodes on a primitive operand stack, so it allocates nothing.
+ */
+class PostfixProgram {
+    static final byte PUSH = 0;
+    static final byte ADD = 1;
+    static final byte SUBTRACT = 2;
+    static final byte MULTIPLY = 3;
+    static final byte DIVIDE = 4;
+    static final byte LOAD = 5;
+
+    // rows evaluated per pass in batch mode; small enough that the operand columns stay in cache
+    private static final int BLOCK_SIZE = 1024;
+
+    private final byte[] code;
+    private final double[] constants;
+    private final int[] loads; // variable index of each LOAD, in program order
+    private final String[] variables;
+    private final boolean integral;
+    private final double[] stack; // reused by evaluate()
+
+    private PostfixProgram(byte[] code, double[] constants, int[] loads, String[] variables, boolean integral,
+                           int maxStackDepth) {
+        this.code = code;
+        this.constants = constants;
+        this.loads = loads;
+        this.variables = variables;
+        this.integral = integral;
+        this.stack = new double[maxStackDepth];
+    }
+
+    static <T extends Number> PostfixProgram compile(BinaryTree<T> tree) {
+        return compile(tree, null);
+    }
+
+    /**
+     * Compiles <code>tree</code> with its variables numbered as in <code>variables</code>, so that
+     * {@link #evaluate(double[], double[])} reads variable <code>variables[i]</code> from index <code>i</code> of its
+     * bindings. If <code>variables</code> is <code>null</code>, they are numbered in order of first appearance.
+     *
+     * @throws IllegalArgumentException if a variable of the tree is not in <code>variables</code>.
+     */
+    static <T extends Number> PostfixProgram compile(BinaryTree<T> tree, String[] variables) {
+        // first pass: size the instruction array, the constant pool and the operand stack
+        int[] counts = new int[5]; // {instructions, constants, loads, stack depth, max stack depth}
+        postOrder(tree, t -> {
+            counts[0]++;
+            if (isLeaf(t) || t instanceof Variable) {
+                counts[isLeaf(t) ? 1 : 2]++;
+                counts[4] = Math.max(counts[4], ++counts[3]);
+            } else if (t instanceof Node) {
+                counts[3]--; // two operands are replaced by one result
+            } else throw new IllegalArgumentException("invalid tree type");
+        });
+
+        // second pass: emit in post-order
+        Emitter emitter = new Emitter(counts[0], counts[1], counts[2], variables);
+        postOrder(tree, emitter);
+        return new PostfixProgram(emitter.code, emitter.constants, emitter.loads,
+                variables != null ? variables.clone() : emitter.variables.keySet().toArray(new String[0]),
+                isIntegral(tree), counts[4]);
+    }
+
+    /**
+     * Visits the leaves, variables and operator nodes of <code>tree</code> in post-order. The walk uses an explicit
+     * stack instead of recursion, so degenerate chains of any length are safe.
+     */
+    private static void postOrder(BinaryTree<?> root, Consumer<BinaryTree<?>> visitor) {
+        // pending subtrees, each either unvisited or a node whose children have already been visited
+        BinaryTree<?>[] pending = new BinaryTree<?>[16];
+        boolean[] expanded = new boolean[16];
+        int top = 0;
+        pending[top++] = root;
+
+        while (top > 0) {
+            BinaryTree<?> tree = pending[--top];
+            if (!(tree instanceof Node) || expanded[top]) {
+                visitor.accept(tree);
+                continue;
+            }
+            Node<?> node = (Node<?>) tree;
+            if (top + 3 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+                expanded = Arrays.copyOf(expanded, pending.length);
+            }
+            pending[top] = node;
+            expanded[top++] = true;
+            pending[top] = node.getRight();
+            expanded[top++] = false;
+            pending[top] = node.getLeft();
+            expanded[top++] = false;
+        }
+    }
+
+    /**
+     * A tree is integral when its leftmost leaf holds an <code>Integer</code>; this mirrors
+     * <code>ArithmeticExpression.evaluate</code>, which truncates every intermediate result of such a tree.
+     */
+    static boolean isIntegral(BinaryTree<?> tree) {
+        while (tree instanceof Node) tree = ((Node<?>) tree).getLeft();
+        if (tree instanceof Variable) return ((Variable<?>) tree).getType() == Integer.class;
+        return tree instanceof IntLeaf || tree instanceof Leaf && ((Leaf<?>) tree).getValue() instanceof Integer;
+    }
+
+    static boolean isLeaf(BinaryTree<?> tree) {
+        return tree instanceof Leaf || tree instanceof IntLeaf || tree instanceof DoubleLeaf;
+    }
+
+    static double valueOf(BinaryTree<?> leaf) {
+        if (leaf instanceof IntLeaf) return ((IntLeaf) leaf).getValue();
+        if (leaf instanceof DoubleLeaf) return ((DoubleLeaf) leaf).getValue();
+        return ((Leaf<?>) leaf).getValue().doubleValue();
+    }
+
+    static byte opcodeOf(Operator operator) {
+        switch (operator) {
+            case ADD:
+                return ADD;
+            case SUBTRACT:
+                return SUBTRACT;
+            case MULTIPLY:
+                return MULTIPLY;
+            case DIVIDE:
+                return DIVIDE;
+            default:
+                throw new IllegalArgumentException("unknown operator: " + operator);
+        }
+    }
+
+    private static final class Emitter implements Consumer<BinaryTree<?>> {
+        private final byte[] code;
+        private final double[] constants;
+        private final int[] loads;
+        private final Map<String, Integer> variables = new LinkedHashMap<>();
+        private final boolean fixedVariables;
+        private int pc;
+        private int cp;
+        private int lp;
+
+        Emitter(int instructions, int constants, int loads, String[] variables) {
+            this.code = new byte[instructions];
+            this.constants = new double[constants];
+            this.loads = new int[loads];
+            this.fixedVariables = variables != null;
+            if (fixedVariables) for (int i = 0; i < variables.length; i++) this.variables.putIfAbsent(variables[i], i);
+        }
+
+        @Override
+        public void accept(BinaryTree<?> tree) {
+            if (isLeaf(tree)) {
+                code[pc++] = PUSH;
+                constants[cp++] = valueOf(tree);
+                return;
+            }
+            if (tree instanceof Variable) {
+                code[pc++] = LOAD;
+                String name = ((Variable<?>) tree).getName();
+                Integer index = variables.get(name);
+                if (index == null) {
+                    if (fixedVariables) throw new IllegalArgumentException("unbound variable: " + name);
+                    variables.put(name, index = variables.size());
+                }
+                loads[lp++] = index;
+                return;
+            }
+            // the operands were emitted before the node
+            code[pc++] = opcodeOf(((Node<?>) tree).getOperator());
+        }
+    }
+
+    int length() {
+        return code.length;
+    }
+
+    int maxStackDepth() {
+        return stack.length;
+    }
+
+    /**
+     * @return the names of the free variables of this program, in the order their columns are expected by the batch
+     * evaluators.
+     */
+    String[] variables() {
+        return variables.clone();
+    }
+
+    /**
+     * Runs this program on its own operand stack. Not safe for concurrent use; threads sharing one program should
+     * call {@link #evaluate(double[])} with a stack of their own.
+     */
+    double evaluate() {
+        return evaluate(stack);
+    }
+
+    /**
+     * Runs this program on the given operand stack, which must hold at least {@link #maxStackDepth()} values.
+     */
+    double evaluate(double[] stack) {
+        if (variables.length > 0) throw new IllegalStateException("program has free variables; evaluate it in batch");
+        return evaluate(stack, null);
+    }
+
+    /**
+     * Runs this program once, reading variable <code>i</code> (ordered as {@link #variables()}) from
+     * <code>bindings[i]</code>, on the given operand stack.
+     */
+    double evaluate(double[] stack, double[] bindings) {
+        if (stack.length < this.stack.length) throw new IllegalArgumentException("operand stack is too small");
+        int sp = 0;
+        int cp = 0;
+        int lp = 0;
+        for (byte op : code) {
+            if (op == PUSH) {
+                stack[sp++] = constants[cp++];
+                continue;
+            }
+            if (op == LOAD) {
+                stack[sp++] = bindings[loads[lp++]];
+                continue;
+            }
+            double right = stack[--sp];
+            double left = stack[sp - 1];
+            double result;
+            switch (op) {
+                case ADD:
+                    result = left + right;
+                    break;
+                case SUBTRACT:
+                    result = left - right;
+                    break;
+                case MULTIPLY:
+                    result = left * right;
+                    break;
+                default: // DIVIDE
+                    result = left / right;
+                    break;
+            }
+            stack[sp - 1] = integral ? (int) result : result;
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates this program once per row, reading variable <code>i</code> from <code>columns[i]</code> (ordered as
+     * {@link #variables()}) and writing row results into <code>out</code>. Rows are processed in blocks, and within a
+     * block each instruction runs over whole columns at once, so the inner loops are simple element-wise array loops.
+     */
+    double[] evaluateBatch(double[][] columns, double[] out) {
+        int rows = out.length;
+        checkColumns(columns.length, rows, i -> columns[i].length);
+        double[][] stack = new double[this.stack.length][Math.min(BLOCK_SIZE, rows)];
+        for (int from = 0; from < rows; from += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, rows - from);
+            int sp = 0;
+            int cp = 0;
+            int lp = 0;
+            for (byte op : code) {
+                if (op == PUSH) {
+                    Arrays.fill(stack[sp++], 0, n, constants[cp++]);
+                    continue;
+                }
+                if (op == LOAD) {
+                    System.arraycopy(columns[loads[lp++]], from, stack[sp++], 0, n);
+                    continue;
+                }
+                double[] right = stack[--sp];
+                double[] left = stack[sp - 1];
+                switch (op) {
+                    case ADD:
+                        for (int i = 0; i < n; i++) left[i] += right[i];
+                        break;
+                    case SUBTRACT:
+                        for (int i = 0; i < n; i++) left[i] -= right[i];
+                        break;
+                    case MULTIPLY:
+                        for (int i = 0; i < n; i++) left[i] *= right[i];
+                        break;
+                    default: // DIVIDE
+                        for (int i = 0; i < n; i++) left[i] /= right[i];
+                        break;
+                }
+                if (integral) for (int i = 0; i < n; i++) left[i] = (int) left[i];
+            }
+            System.arraycopy(stack[0], 0, out, from, n);
+        }
+        return out;
+    }
+
+    /**
+     * The <code>int</code> counterpart of {@link #evaluateBatch(double[][], double[])}, with the semantics of
+     * <code>ArithmeticExpression.evaluateInt</code>.
+     */
+    int[] evaluateBatch(int[][] columns, int[] out) {
+        int rows = out.length;
+        checkColumns(columns.length, rows, i -> columns[i].length);
+        int[][] stack = new int[this.stack.length][Math.min(BLOCK_SIZE, rows)];
+        for (int from = 0; from < rows; from += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, rows - from);
+            int sp = 0;
+            int cp = 0;
+            int lp = 0;
+            for (byte op : code) {
+                if (op == PUSH) {
+                    Arrays.fill(stack[sp++], 0, n, (int) constants[cp++]);
+                    continue;
+                }
+                if (op == LOAD) {
+                    System.arraycopy(columns[loads[lp++]], from, stack[sp++], 0, n);
+                    continue;
+                }
+                int[] right = stack[--sp];
+                int[] left = stack[sp - 1];
+                switch (op) {
+                    case ADD:
+                        for (int i = 0; i < n; i++) left[i] += right[i];
+                        break;
+                    case SUBTRACT:
+                        for (int i = 0; i < n; i++) left[i] -= right[i];
+                        break;
+                    case MULTIPLY:
+                        for (int i = 0; i < n; i++) left[i] *= right[i];
+                        break;
+                    default: // DIVIDE
+                        for (int i = 0; i < n; i++) left[i] /= right[i];
+                        break;
+                }
+            }
+            System.arraycopy(stack[0], 0, out, from, n);
+        }
+        return out;
+    }
+
+    private void checkColumns(int count, int rows, IntUnaryOperator lengthOf) {
+        if (count != variables.length)
+            throw new IllegalArgumentException("expected " + variables.length + " columns but got " + count);
+        for (int i = 0; i < count; i++)
+            if (lengthOf.applyAsInt(i) < rows)
+                throw new IllegalArgumentException("column for variable " + variables[i] + " is too short");
+    }
+}
@@ -7,10 +7,18 @@ class Rectangle implements Shape {
         this.c2 = c2;
     }
 
+    protected Point getBottomLeft() {
+        return c1;
+    }
+
+    protected Point getTopRight() {
+        return c2;
+    }
+
     @Override
     public Point center() {
-        // (avg(x1, x2), avg(y1, y2))
-        return new Point((c2.getX() + c1.getX()) / 2, (c2.getY() + c1.getY()) / 2);
+        // (avg(x1, x2), avg(y1, y2)), computed exactly in hundredths
+        return Point.midpoint(c1, c2);
     }
 
     @Override
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * A struct-of-arrays store for many shapes, with one set of primitive columns per kind of shape. Bulk operations run
+ * as plain loops over the columns and allocate nothing per shape.
+ * <p>
+ * Results are reported by kind: all points first (in the order they were added), then all circles, then all
+ * rectangles.
+ */
+class ShapeBatch {
+    // coordinates are kept as the exact hundredths that Point stores
+    private long[] pointX = new long[8];
+    private long[] pointY = new long[8];
+    private int points;
+
+    private long[] circleX = new long[8];
+    private long[] circleY = new long[8];
+    private double[] circleRadius = new double[8];
+    private int circles;
+
+    private long[] rectangleX1 = new long[8]; // bottom left
+    private long[] rectangleY1 = new long[8];
+    private long[] rectangleX2 = new long[8]; // top right
+    private long[] rectangleY2 = new long[8];
+    private int rectangles;
+
+    public static ShapeBatch of(Collection<? extends Shape> shapes) {
+        ShapeBatch batch = new ShapeBatch();
+        for (Shape shape : shapes) batch.add(shape);
+        return batch;
+    }
+
+    public void add(Shape shape) {
+        if (shape instanceof Point) {
+            Point point = (Point) shape;
+            if (points == pointX.length) {
+                pointX = Arrays.copyOf(pointX, 2 * points);
+                pointY = Arrays.copyOf(pointY, 2 * points);
+            }
+            pointX[points] = point.getXHundredths();
+            pointY[points++] = point.getYHundredths();
+        } else if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            if (circles == circleX.length) {
+                circleX = Arrays.copyOf(circleX, 2 * circles);
+                circleY = Arrays.copyOf(circleY, 2 * circles);
+                circleRadius = Arrays.copyOf(circleRadius, 2 * circles);
+            }
+            circleX[circles] = circle.center().getXHundredths();
+            circleY[circles] = circle.center().getYHundredths();
+            circleRadius[circles++] = circle.getRadius();
+        } else if (shape instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) shape;
+            if (rectangles == rectangleX1.length) {
+                rectangleX1 = Arrays.copyOf(rectangleX1, 2 * rectangles);
+                rectangleY1 = Arrays.copyOf(rectangleY1, 2 * rectangles);
+                rectangleX2 = Arrays.copyOf(rectangleX2, 2 * rectangles);
+                rectangleY2 = Arrays.copyOf(rectangleY2, 2 * rectangles);
+            }
+            rectangleX1[rectangles] = rectangle.getBottomLeft().getXHundredths();
+            rectangleY1[rectangles] = rectangle.getBottomLeft().getYHundredths();
+            rectangleX2[rectangles] = rectangle.getTopRight().getXHundredths();
+            rectangleY2[rectangles++] = rectangle.getTopRight().getYHundredths();
+        } else throw new IllegalArgumentException("unsupported shape: " + shape.getClass().getSimpleName());
+    }
+
+    public int size() {
+        return points + circles + rectangles;
+    }
+
+    public int pointCount() {
+        return points;
+    }
+
+    public int circleCount() {
+        return circles;
+    }
+
+    public int rectangleCount() {
+        return rectangles;
+    }
+
+    /**
+     * Writes the area of every shape into <code>out</code>, which must hold at least {@link #size()} values.
+     *
+     * @return <code>out</code>
+     */
+    public double[] areas(double[] out) {
+        checkCapacity(out.length);
+        Arrays.fill(out, 0, points, 0);
+        for (int i = 0; i < circles; i++) out[points + i] = circleArea(i);
+        for (int i = 0, offset = points + circles; i < rectangles; i++) out[offset + i] = rectangleArea(i);
+        return out;
+    }
+
+    /**
+     * Like {@link #areas(double[])}, but splits the work across the common fork-join pool.
+     */
+    public double[] parallelAreas(double[] out) {
+        checkCapacity(out.length);
+        Arrays.fill(out, 0, points, 0);
+        IntStream.range(0, circles).parallel().forEach(i -> out[points + i] = circleArea(i));
+        IntStream.range(0, rectangles).parallel().forEach(i -> out[points + circles + i] = rectangleArea(i));
+        return out;
+    }
+
+    /**
+     * Writes the center of every shape into <code>xs</code> and <code>ys</code>, rounded exactly as the
+     * <code>Point</code> returned by each shape's <code>center()</code>.
+     */
+    public void centers(double[] xs, double[] ys) {
+        checkCapacity(Math.min(xs.length, ys.length));
+        for (int i = 0; i < points; i++) {
+            xs[i] = pointX[i] / 100.0;
+            ys[i] = pointY[i] / 100.0;
+        }
+        for (int i = 0; i < circles; i++) {
+            xs[points + i] = circleX[i] / 100.0;
+            ys[points + i] = circleY[i] / 100.0;
+        }
+        for (int i = 0, offset = points + circles; i < rectangles; i++) {
+            xs[offset + i] = Point.midpoint(rectangleX1[i], rectangleX2[i]) / 100.0;
+            ys[offset + i] = Point.midpoint(rectangleY1[i], rectangleY2[i]) / 100.0;
+        }
+    }
+
+    public double totalArea() {
+        double total = 0;
+        for (int i = 0; i < circles; i++) total += circleArea(i);
+        for (int i = 0; i < rectangles; i++) total += rectangleArea(i);
+        return total;
+    }
+
+    public double parallelTotalArea() {
+        return IntStream.range(0, circles).parallel().mapToDouble(this::circleArea).sum()
+                + IntStream.range(0, rectangles).parallel().mapToDouble(this::rectangleArea).sum();
+    }
+
+    // same arithmetic as Circle.area() and Rectangle.area()
+    private double circleArea(int i) {
+        return Math.PI * (circleRadius[i] * circleRadius[i]);
+    }
+
+    private double rectangleArea(int i) {
+        double width = rectangleX2[i] / 100.0 - rectangleX1[i] / 100.0;
+        double height = rectangleY2[i] / 100.0 - rectangleY1[i] / 100.0;
+        return Math.abs(width) * Math.abs(height);
+    }
+
+    private void checkCapacity(int length) {
+        if (length < size()) throw new IllegalArgumentException("output holds " + length + " of " + size() + " shapes");
+    }
+}
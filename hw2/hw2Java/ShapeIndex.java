@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A uniform-grid spatial index over the centers of shapes. Each shape is filed under the grid cell containing its
+ * <code>center()</code>, so range and nearest-neighbour queries only look at the cells near the query instead of
+ * every shape. Only non-empty cells are stored, so the grid is unbounded.
+ */
+class ShapeIndex {
+    // aim for about this many shapes per cell when bulk loading
+    private static final int SHAPES_PER_CELL = 4;
+
+    private static final class Entry {
+        final Shape shape;
+        final double x;
+        final double y;
+
+        Entry(Shape shape, Point center) {
+            this.shape = shape;
+            this.x = center.getX();
+            this.y = center.getY();
+        }
+
+        double distanceSquared(double px, double py) {
+            return (x - px) * (x - px) + (y - py) * (y - py);
+        }
+    }
+
+    private final double cellSize;
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private int size;
+
+    public ShapeIndex(double cellSize) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize))
+            throw new IllegalArgumentException("cell size must be positive and finite");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Builds an index over <code>shapes</code>, choosing the cell size from the spread of their centers.
+     */
+    public static ShapeIndex bulkLoad(Collection<? extends Shape> shapes) {
+        List<Entry> entries = new ArrayList<>(shapes.size());
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Shape shape : shapes) {
+            Entry entry = new Entry(shape, shape.center());
+            entries.add(entry);
+            minX = Math.min(minX, entry.x);
+            minY = Math.min(minY, entry.y);
+            maxX = Math.max(maxX, entry.x);
+            maxY = Math.max(maxY, entry.y);
+        }
+        int n = Math.max(entries.size(), 1);
+        double width = Math.max(maxX - minX, 0), height = Math.max(maxY - minY, 0);
+        // treat nearly collinear centers as a strip, so the cells still hold a few shapes each
+        double extent = Math.max(width, height);
+        double area = Math.max(width * height, extent * extent / n);
+        double cellSize = Math.sqrt(area * SHAPES_PER_CELL / n);
+        ShapeIndex index = new ShapeIndex(cellSize > 0 && !Double.isInfinite(cellSize) ? cellSize : 1);
+        for (Entry entry : entries) index.insert(entry);
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(Shape shape) {
+        insert(new Entry(shape, shape.center()));
+    }
+
+    private void insert(Entry entry) {
+        cells.computeIfAbsent(keyOf(cellOf(entry.x), cellOf(entry.y)), k -> new ArrayList<>()).add(entry);
+        size++;
+    }
+
+    /**
+     * Removes <code>shape</code> (compared by identity). The shape's center must not have changed since it was
+     * inserted.
+     *
+     * @return whether the shape was in this index
+     */
+    public boolean remove(Shape shape) {
+        Point center = shape.center();
+        long key = keyOf(cellOf(center.getX()), cellOf(center.getY()));
+        List<Entry> cell = cells.get(key);
+        if (cell == null) return false;
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i).shape != shape) continue;
+            // order within a cell does not matter
+            cell.set(i, cell.get(cell.size() - 1));
+            cell.remove(cell.size() - 1);
+            if (cell.isEmpty()) cells.remove(key);
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return every shape whose center lies in the closed box <code>[minX, maxX] x [minY, maxY]</code>.
+     */
+    public List<Shape> range(double minX, double minY, double maxX, double maxY) {
+        List<Shape> result = new ArrayList<>();
+        if (minX > maxX || minY > maxY) return result;
+        long x0 = cellOf(minX), x1 = cellOf(maxX), y0 = cellOf(minY), y1 = cellOf(maxY);
+        if ((double) (x1 - x0 + 1) * (y1 - y0 + 1) > cells.size()) {
+            // the box covers more grid cells than are occupied, so walk the occupied ones instead
+            for (List<Entry> cell : cells.values()) collect(cell, minX, minY, maxX, maxY, result);
+            return result;
+        }
+        for (long cx = x0; cx <= x1; cx++) {
+            for (long cy = y0; cy <= y1; cy++) {
+                List<Entry> cell = cells.get(keyOf(cx, cy));
+                if (cell != null) collect(cell, minX, minY, maxX, maxY, result);
+            }
+        }
+        return result;
+    }
+
+    private static void collect(List<Entry> cell, double minX, double minY, double maxX, double maxY,
+                                List<Shape> result) {
+        for (Entry entry : cell)
+            if (entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY) result.add(entry.shape);
+    }
+
+    /**
+     * @return the (at most) <code>k</code> shapes whose centers are nearest to <code>(x, y)</code>, nearest first.
+     */
+    public List<Shape> nearest(double x, double y, int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative");
+        // farthest candidate on top, so it is the one replaced by a nearer shape
+        PriorityQueue<Entry> best = new PriorityQueue<>(Math.max(k, 1),
+                Comparator.comparingDouble((Entry e) -> e.distanceSquared(x, y)).reversed());
+        if (k > 0 && size > 0) {
+            long qx = cellOf(x), qy = cellOf(y);
+            int seen = 0;
+            for (long ring = 0; seen < size; ring++) {
+                if (8 * ring > cells.size()) {
+                    // the rings have outgrown the occupied cells; finish with a scan of everything
+                    best.clear();
+                    for (List<Entry> cell : cells.values()) for (Entry entry : cell) offer(best, entry, k, x, y);
+                    break;
+                }
+                for (long cx = qx - ring; cx <= qx + ring; cx++) {
+                    // interior cells of the square were covered by earlier rings
+                    long step = cx == qx - ring || cx == qx + ring ? 1 : Math.max(2 * ring, 1);
+                    for (long cy = qy - ring; cy <= qy + ring; cy += step) {
+                        List<Entry> cell = cells.get(keyOf(cx, cy));
+                        if (cell == null) continue;
+                        seen += cell.size();
+                        for (Entry entry : cell) offer(best, entry, k, x, y);
+                    }
+                }
+                // anything not seen yet is in ring + 1 or beyond, so at least ring * cellSize away
+                double reach = ring * cellSize;
+                if (best.size() == k && best.peek().distanceSquared(x, y) <= reach * reach) break;
+            }
+        }
+        List<Shape> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) result.add(best.poll().shape);
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static void offer(PriorityQueue<Entry> best, Entry entry, int k, double x, double y) {
+        if (best.size() < k) best.add(entry);
+        else if (entry.distanceSquared(x, y) < best.peek().distanceSquared(x, y)) {
+            best.poll();
+            best.add(entry);
+        }
+    }
+
+    private long cellOf(double coordinate) {
+        // clamp so that distant coordinates still map to a valid 32-bit cell index
+        return (long) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.floor(coordinate / cellSize)));
+    }
+
+    private static long keyOf(long cx, long cy) {
+        return cx << 32 | cy & 0xffffffffL;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Finds every pair of overlapping shapes with a sort-and-sweep over their bounding boxes. Shapes are sorted by the
+ * left edge of their box; each shape is then only compared with the shapes whose left edge falls before its right
+ * edge, and candidate pairs are confirmed with an exact circle/rectangle intersection test. Shapes are closed, so
+ * shapes that merely touch overlap. Points are treated as circles of radius 0.
+ */
+class SpatialJoin {
+    private final Shape[] shapes; // sorted by minX
+    private final double[] minX;
+    private final double[] maxX;
+    private final double[] minY;
+    private final double[] maxY;
+    private final boolean[] round; // circle or point, rather than rectangle
+    private final double[] centerX; // circles and points only
+    private final double[] centerY;
+    private final double[] radius;
+
+    public SpatialJoin(Collection<? extends Shape> shapes) {
+        Shape[] sorted = shapes.toArray(new Shape[0]);
+        double[] left = new double[sorted.length];
+        for (int i = 0; i < sorted.length; i++) left[i] = extentOf(sorted[i])[0];
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> left[i]));
+
+        int n = sorted.length;
+        this.shapes = new Shape[n];
+        this.minX = new double[n];
+        this.maxX = new double[n];
+        this.minY = new double[n];
+        this.maxY = new double[n];
+        this.round = new boolean[n];
+        this.centerX = new double[n];
+        this.centerY = new double[n];
+        this.radius = new double[n];
+        for (int i = 0; i < n; i++) {
+            Shape shape = sorted[order[i]];
+            double[] extent = extentOf(shape);
+            this.shapes[i] = shape;
+            this.minX[i] = extent[0];
+            this.minY[i] = extent[1];
+            this.maxX[i] = extent[2];
+            this.maxY[i] = extent[3];
+            this.round[i] = !(shape instanceof Rectangle);
+            if (round[i]) {
+                this.centerX[i] = shape.center().getX();
+                this.centerY[i] = shape.center().getY();
+                this.radius[i] = shape instanceof Circle ? Math.abs(((Circle) shape).getRadius()) : 0;
+            }
+        }
+    }
+
+    /**
+     * @return the bounding box of <code>shape</code> as <code>{minX, minY, maxX, maxY}</code>.
+     */
+    private static double[] extentOf(Shape shape) {
+        if (shape instanceof Rectangle) {
+            Point a = ((Rectangle) shape).getBottomLeft(), b = ((Rectangle) shape).getTopRight();
+            return new double[]{Math.min(a.getX(), b.getX()), Math.min(a.getY(), b.getY()),
+                    Math.max(a.getX(), b.getX()), Math.max(a.getY(), b.getY())};
+        }
+        if (shape instanceof Circle || shape instanceof Point) {
+            Point c = shape.center();
+            double r = shape instanceof Circle ? Math.abs(((Circle) shape).getRadius()) : 0;
+            return new double[]{c.getX() - r, c.getY() - r, c.getX() + r, c.getY() + r};
+        }
+        throw new IllegalArgumentException("unsupported shape: " + shape.getClass().getSimpleName());
+    }
+
+    public int size() {
+        return shapes.length;
+    }
+
+    /**
+     * Passes every overlapping pair to <code>consumer</code> exactly once, on the calling thread.
+     */
+    public void forEachOverlap(BiConsumer<? super Shape, ? super Shape> consumer) {
+        sweep(0, shapes.length, consumer);
+    }
+
+    /**
+     * Like {@link #forEachOverlap(BiConsumer)}, but the sweep is split into <code>partitions</code> ranges of the
+     * sorted shapes that run concurrently on the common fork-join pool, so <code>consumer</code> must be
+     * thread-safe.
+     */
+    public void forEachOverlap(int partitions, BiConsumer<? super Shape, ? super Shape> consumer) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions must be positive");
+        int n = shapes.length;
+        IntStream.range(0, partitions).parallel()
+                .forEach(p -> sweep((int) ((long) n * p / partitions), (int) ((long) n * (p + 1) / partitions),
+                        consumer));
+    }
+
+    public long countOverlaps() {
+        LongAdder count = new LongAdder();
+        forEachOverlap(Runtime.getRuntime().availableProcessors(), (a, b) -> count.increment());
+        return count.sum();
+    }
+
+    /**
+     * Reports the overlaps of shapes <code>from</code> (inclusive) to <code>to</code> (exclusive) with every shape
+     * after them in sweep order.
+     */
+    private void sweep(int from, int to, BiConsumer<? super Shape, ? super Shape> consumer) {
+        for (int i = from; i < to; i++) {
+            for (int j = i + 1; j < shapes.length && minX[j] <= maxX[i]; j++) {
+                if (minY[j] > maxY[i] || maxY[j] < minY[i]) continue;
+                if (intersects(i, j)) consumer.accept(shapes[i], shapes[j]);
+            }
+        }
+    }
+
+    /**
+     * Exact test for two shapes whose bounding boxes are already known to overlap.
+     */
+    private boolean intersects(int i, int j) {
+        if (!round[i] && !round[j]) return true; // two boxes
+        if (round[i] && round[j]) {
+            double dx = centerX[i] - centerX[j], dy = centerY[i] - centerY[j], r = radius[i] + radius[j];
+            return dx * dx + dy * dy <= r * r;
+        }
+        int circle = round[i] ? i : j, box = round[i] ? j : i;
+        // distance from the circle's center to the nearest point of the rectangle
+        double dx = centerX[circle] - Math.max(minX[box], Math.min(centerX[circle], maxX[box]));
+        double dy = centerY[circle] - Math.max(minY[box], Math.min(centerY[circle], maxY[box]));
+        return dx * dx + dy * dy <= radius[circle] * radius[circle];
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * A leaf that stands for a named input. Trees containing variables are evaluated in batches, with one column of
+ * values per variable (see <code>ArithmeticExpression.evaluateBatch</code>).
+ */
+class Variable<T extends Number> extends BinaryTree<T> {
+    private final String name;
+    private final Class<T> type;
+
+    public Variable(String name, Class<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    protected String getName() {
+        return name;
+    }
+
+    protected Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Variable)) return false;
+        Variable<?> variable = (Variable<?>) o;
+        return name.equals(variable.name) && type == variable.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + type.hashCode();
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The symmetries of a regular polygon with <code>n</code> vertices form the dihedral group of order <code>2n</code>:
+ * <code>n</code> rotations and <code>n</code> reflections. Like {@link SquareSymmetries}, every symmetry is treated as
+ * a permutation of the vertex positions, so no coordinates are ever rotated:
+ * <ul>
+ *     <li>rotation <code>k</code> puts the vertex from position <code>i - k</code> at position <code>i</code>;</li>
+ *     <li>reflection <code>k</code> puts the vertex from position <code>k - i</code> at position <code>i</code>;</li>
+ * </ul>
+ * with positions taken modulo <code>n</code>.
+ * <p>
+ * Two polygons in the same place are therefore symmetric exactly when the names of one, read around the polygon, are
+ * a cyclic shift of the names of the other, read forwards or backwards. {@link #areSymmetric} decides this in
+ * <code>O(n)</code> by bringing each name sequence to its lexicographically least rotation with Booth's algorithm.
+ */
+public class DihedralSymmetries implements Symmetries<RegularPolygon> {
+
+    @Override
+    public boolean areSymmetric(RegularPolygon p1, RegularPolygon p2) {
+        Point[] v1 = p1.getVertices();
+        Point[] v2 = p2.getVertices();
+        if (v1.length != v2.length) return false;
+        for (int i = 0; i < v1.length; i++)
+            if (!Square.aboutEqual(v1[i].x, v2[i].x) || !Square.aboutEqual(v1[i].y, v2[i].y))
+                return false;
+
+        String[] names = namesOf(v2, false);
+        int shift = leastRotation(names);
+        String[] forwards = namesOf(v1, false);
+        if (sameRotation(forwards, leastRotation(forwards), names, shift)) return true;
+        String[] backwards = namesOf(v1, true);
+        return sameRotation(backwards, leastRotation(backwards), names, shift);
+    }
+
+    @Override
+    public List<RegularPolygon> symmetriesOf(RegularPolygon polygon) {
+        int n = polygon.size();
+        List<RegularPolygon> symmetries = new ArrayList<>(2 * n);
+        for (int k = 0; k < n; k++) symmetries.add(imageOf(polygon, k, false));
+        for (int k = 0; k < n; k++) symmetries.add(imageOf(polygon, k, true));
+        return symmetries;
+    }
+
+    /**
+     * Returns the canonical representative of the symmetry class of <code>polygon</code>: the image whose vertex
+     * names, read in order, come first lexicographically. Found in <code>O(n)</code>, building only that image.
+     */
+    public RegularPolygon canonicalOf(RegularPolygon polygon) {
+        Point[] vertices = polygon.getVertices();
+        int n = vertices.length;
+        String[] forwards = namesOf(vertices, false);
+        String[] backwards = namesOf(vertices, true);
+        int f = leastRotation(forwards), b = leastRotation(backwards);
+        // rotation k starts from the vertex at position -k; reflection k starts from the one at position k, and
+        // backwards[j] is the name at position -j
+        if (compare(forwards, f, backwards, b) <= 0) return imageOf(polygon, Math.floorMod(-f, n), false);
+        return imageOf(polygon, Math.floorMod(-b, n), true);
+    }
+
+    /**
+     * @return the image of <code>polygon</code> under rotation or reflection <code>k</code>.
+     */
+    protected static RegularPolygon imageOf(RegularPolygon polygon, int k, boolean reflect) {
+        Point[] vertices = polygon.getVertices();
+        int n = vertices.length;
+        Point[] image = new Point[n];
+        for (int i = 0; i < n; i++) {
+            Point from = vertices[Math.floorMod(reflect ? k - i : i - k, n)];
+            image[i] = new Point(from.name, vertices[i].x, vertices[i].y);
+        }
+        return RegularPolygon.ofValidated(image, polygon.center());
+    }
+
+    private static String[] namesOf(Point[] vertices, boolean backwards) {
+        int n = vertices.length;
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) names[i] = vertices[backwards ? Math.floorMod(-i, n) : i].name;
+        return names;
+    }
+
+    /**
+     * Booth's algorithm.
+     *
+     * @return the offset at which the lexicographically least cyclic rotation of <code>s</code> starts.
+     */
+    protected static int leastRotation(String[] s) {
+        int n = s.length;
+        int[] failure = new int[2 * n];
+        Arrays.fill(failure, -1);
+        int k = 0;
+        for (int j = 1; j < 2 * n; j++) {
+            String c = s[j % n];
+            int i = failure[j - k - 1];
+            while (i != -1 && !c.equals(s[(k + i + 1) % n])) {
+                if (c.compareTo(s[(k + i + 1) % n]) < 0) k = j - i - 1;
+                i = failure[i];
+            }
+            if (c.equals(s[(k + i + 1) % n])) {
+                failure[j - k] = i + 1;
+            } else {
+                // here i == -1
+                if (c.compareTo(s[k % n]) < 0) k = j;
+                failure[j - k] = -1;
+            }
+        }
+        return k % n;
+    }
+
+    /**
+     * Compares the rotation of <code>s</code> starting at <code>i</code> with that of <code>t</code> starting at
+     * <code>j</code>, element by element.
+     */
+    private static int compare(String[] s, int i, String[] t, int j) {
+        int n = s.length;
+        for (int m = 0; m < n; m++) {
+            int c = s[(i + m) % n].compareTo(t[(j + m) % n]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    private static boolean sameRotation(String[] s, int i, String[] t, int j) {
+        return compare(s, i, t, j) == 0;
+    }
+}
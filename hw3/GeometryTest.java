@@ -1,4 +1,9 @@
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * This class is given to you as an outline for testing your code. You can modify this as you want, but please keep in
@@ -10,6 +15,235 @@ public class GeometryTest {
 
     public static void main(String... args) {
         testSquareSymmetries();
+        testTwoDecimals();
+        testLeastRotation();
+        testSquareCanonicalForms();
+        testPolygonCanonicalForms();
+        testD4Table();
+        testLazyTransforms();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    /**
+     * ShapeWriter rounds the shortest decimal form of a value half up, as String.format does, rather than the exact
+     * binary value: 1.005 is stored just below 1.005 but prints as 1.01. Checked on known cases, on every tie from
+     * -1000 to 1000 and the doubles either side of it, and on large values, which leave the integer path.
+     */
+    private static void testTwoDecimals() {
+        String[][] known = {
+                {"1.005", "1.01"}, {"2.675", "2.68"}, {"0.125", "0.13"}, {"-0.005", "-0.01"}, {"99.995", "100.00"},
+                {"-0.0", "-0.00"}, {"-1e-9", "-0.00"}, {"1e15", "1000000000000000.00"}, {"NaN", "NaN"},
+                {"-Infinity", "-Infinity"}
+        };
+        for (String[] c : known) {
+            String actual = ShapeWriter.appendTwoDecimals(new StringBuilder(), Double.parseDouble(c[0])).toString();
+            check(c[1].equals(actual), c[0] + ": expected " + c[1] + " but was " + actual);
+        }
+
+        for (int hundredths = -100_000; hundredths < 100_000; hundredths++) {
+            double tie = (hundredths + 0.5) / 100;
+            sameAsFormat(Math.nextDown(tie));
+            sameAsFormat(tie);
+            sameAsFormat(Math.nextUp(tie));
+        }
+        for (double value = 1e6 + 0.005; value < 1e17; value *= 3.7) sameAsFormat(value);
+    }
+
+    private static void sameAsFormat(double value) {
+        String expected = String.format(Locale.ROOT, "%.2f", value);
+        String actual = ShapeWriter.appendTwoDecimals(new StringBuilder(), value).toString();
+        check(expected.equals(actual), value + ": expected " + expected + " but was " + actual);
+    }
+
+    /**
+     * Booth's algorithm on every word of up to ten letters over two names, which covers the periodic and repetitive
+     * words where its failure function backtracks, and on names longer than one character, which are compared whole.
+     */
+    private static void testLeastRotation() {
+        for (int n = 1; n <= 10; n++) {
+            for (int bits = 0; bits < 1 << n; bits++) {
+                String[] word = new String[n];
+                for (int i = 0; i < n; i++) word[i] = (bits >> i & 1) == 0 ? "a" : "b";
+                String doubled = String.join("", word) + String.join("", word);
+                String least = doubled.substring(0, n);
+                for (int k = 1; k < n; k++)
+                    if (doubled.substring(k, k + n).compareTo(least) < 0) least = doubled.substring(k, k + n);
+                int k = DihedralSymmetries.leastRotation(word);
+                check(doubled.substring(k, k + n).equals(least), doubled.substring(0, n) + " starts at " + k);
+            }
+        }
+        // as one string "ab" + "a" + "b" would come first, but name by name "a" < "ab"
+        check(DihedralSymmetries.leastRotation(new String[]{"b", "ab", "a"}) == 2, "names compared as one string");
+    }
+
+    /**
+     * All 81 namings of the vertices of one square by three names. Squares in the same place are symmetric exactly
+     * when their canonical forms are equal, so every pair must agree, and each canonical form must be the symmetry
+     * with the least names.
+     */
+    private static void testSquareCanonicalForms() {
+        SquareSymmetries symmetries = new SquareSymmetries();
+        Point[] corners = new Square(
+                new Point("D", 4, 4),
+                new Point("A", 1, 4),
+                new Point("B", 1, 1),
+                new Point("C", 4, 1)
+        ).getVertices();
+        List<Square> squares = new ArrayList<>();
+        for (int naming = 0; naming < 81; naming++) {
+            Point[] named = new Point[4];
+            for (int i = 0, digits = naming; i < 4; i++, digits /= 3)
+                named[i] = new Point(String.valueOf((char) ('A' + digits % 3)), corners[i].x, corners[i].y);
+            squares.add(Square.ofValidated(named));
+        }
+
+        for (Square square : squares) {
+            Square least = square;
+            for (Square image : symmetries.symmetriesOf(square))
+                if (namesOf(image.getVertices()).compareTo(namesOf(least.getVertices())) < 0) least = image;
+            check(symmetries.canonicalOf(square).equals(least), square + ": expected " + least);
+            for (Square other : squares)
+                check(symmetries.areSymmetric(square, other)
+                              == symmetries.canonicalOf(square).equals(symmetries.canonicalOf(other)),
+                      square + " and " + other + " disagree with their canonical forms");
+        }
+    }
+
+    /**
+     * Every naming of the vertices of regular polygons with three to six vertices by two names: the canonical form
+     * must be the symmetry with the least names, and every symmetry of the polygon must have the same canonical form.
+     */
+    private static void testPolygonCanonicalForms() {
+        DihedralSymmetries symmetries = new DihedralSymmetries();
+        for (int n = 3; n <= 6; n++) {
+            for (int bits = 0; bits < 1 << n; bits++) {
+                Point[] vertices = new Point[n];
+                for (int i = 0; i < n; i++)
+                    vertices[i] = new Point((bits >> i & 1) == 0 ? "A" : "B",
+                                            2 + Math.cos(2 * Math.PI * i / n), 3 + Math.sin(2 * Math.PI * i / n));
+                RegularPolygon polygon = new RegularPolygon(vertices);
+                String canonical = namesOf(symmetries.canonicalOf(polygon).getVertices());
+                String least = null;
+                for (RegularPolygon image : symmetries.symmetriesOf(polygon)) {
+                    String names = namesOf(image.getVertices());
+                    if (least == null || names.compareTo(least) < 0) least = names;
+                    check(namesOf(symmetries.canonicalOf(image).getVertices()).equals(canonical),
+                          image + " and " + polygon + " have different canonical forms");
+                }
+                check(canonical.equals(least), polygon + ": expected " + least + " but was " + canonical);
+            }
+        }
+    }
+
+    private static String namesOf(Point[] vertices) {
+        StringBuilder sb = new StringBuilder(vertices.length);
+        for (Point v : vertices) sb.append(v.name);
+        return sb.toString();
+    }
+
+    /**
+     * Each entry of the D4 table must move every vertex where the geometric symmetry it is listed as does, on a square
+     * that is not aligned with the axes: the first four are the counterclockwise rotations by multiples of 90
+     * degrees, and the rest are the reflections in the order of the table. The table must also be closed: the
+     * symmetries of any symmetry are the same eight squares.
+     */
+    private static void testD4Table() {
+        Square square = new Square(
+                new Point("D", 4, 4),
+                new Point("A", 1, 4),
+                new Point("B", 1, 1),
+                new Point("C", 4, 1)
+        ).rotateBy(30);
+        Point[] vertices = square.getVertices();
+        Point center = square.center();
+        // directions of the lines of reflection, in table order: the diagonal through positions 1 and 3, the axis
+        // through the midpoint of edge 0-3, the diagonal through positions 0 and 2, and the axis through the midpoint
+        // of edge 0-1
+        double[][] lines = {
+                {vertices[1].x - center.x, vertices[1].y - center.y},
+                {(vertices[0].x + vertices[3].x) / 2 - center.x, (vertices[0].y + vertices[3].y) / 2 - center.y},
+                {vertices[0].x - center.x, vertices[0].y - center.y},
+                {(vertices[0].x + vertices[1].x) / 2 - center.x, (vertices[0].y + vertices[1].y) / 2 - center.y}
+        };
+
+        SquareSymmetries symmetries = new SquareSymmetries();
+        List<Square> images = symmetries.symmetriesOf(square);
+        check(images.size() == 8, "D4 has 8 elements, not " + images.size());
+        for (int k = 0; k < 8; k++) {
+            Transform rotation = k < 4 ? Transform.rotation(90 * k, center.x, center.y) : null;
+            for (Point v : vertices) {
+                Point expected = k < 4 ? rotation.apply(v) : reflect(v, center, lines[k - 4]);
+                check(sameVertex(images.get(k), v.name, expected), "entry " + k + " moves " + v.name + " wrongly");
+            }
+        }
+
+        Set<Square> group = new HashSet<>(images);
+        for (Square image : images)
+            check(group.equals(new HashSet<>(symmetries.symmetriesOf(image))),
+                  "the symmetries of " + image + " are not those of " + square);
+    }
+
+    /**
+     * A chain of rotations and translations fused by <code>TransformedSquare</code> must give the same square as the
+     * chain applied one step at a time. Rotations by multiples of 45 degrees are common in the chains, since they put
+     * a vertex on the center's horizontal line, where the two paths round differently.
+     */
+    private static void testLazyTransforms() {
+        Random random = new Random(17);
+        for (int i = 0; i < 3_000; i++) {
+            double x = random.nextInt(2_000) / 100.0 - 10, y = random.nextInt(2_000) / 100.0 - 10;
+            double side = 0.5 + random.nextInt(1_000) / 100.0;
+            Square eager = new Square(
+                    new Point("D", x + side, y + side),
+                    new Point("A", x, y + side),
+                    new Point("B", x, y),
+                    new Point("C", x + side, y)
+            );
+            TransformedSquare lazy = new TransformedSquare(eager);
+            StringBuilder chain = new StringBuilder();
+            for (int step = random.nextInt(6); step >= 0; step--) {
+                if (random.nextBoolean()) {
+                    int degrees = random.nextBoolean() ? 45 * random.nextInt(8) : random.nextInt(720) - 360;
+                    eager = eager.rotateBy(degrees);
+                    lazy = lazy.rotateBy(degrees);
+                    chain.append(" rotate ").append(degrees);
+                } else {
+                    double dx = random.nextInt(2_000) / 100.0 - 10, dy = random.nextInt(2_000) / 100.0 - 10;
+                    eager = (Square) eager.translateBy(dx, dy);
+                    lazy = lazy.translateBy(dx, dy);
+                    chain.append(" translate ").append(dx).append(' ').append(dy);
+                }
+            }
+            Point[] expected = eager.getVertices();
+            Point[] actual = lazy.toSquare().getVertices();
+            for (int k = 0; k < 4; k++)
+                check(actual[k].name.equals(expected[k].name) && Square.aboutEqual(actual[k].x, expected[k].x)
+                              && Square.aboutEqual(actual[k].y, expected[k].y),
+                      "after" + chain + ": lazy " + lazy + " but eager " + eager);
+        }
+    }
+
+    /**
+     * @return whether <code>square</code> has the vertex named <code>name</code> where <code>expected</code> is.
+     */
+    private static boolean sameVertex(Square square, String name, Point expected) {
+        for (Point v : square.getVertices())
+            if (v.name.equals(name))
+                return Square.aboutEqual(v.x, expected.x) && Square.aboutEqual(v.y, expected.y);
+        return false;
+    }
+
+    /**
+     * @return the reflection of <code>p</code> across the line through <code>center</code> in direction
+     * <code>line</code>.
+     */
+    private static Point reflect(Point p, Point center, double[] line) {
+        double dx = p.x - center.x, dy = p.y - center.y;
+        double scale = 2 * (dx * line[0] + dy * line[1]) / (line[0] * line[0] + line[1] * line[1]);
+        return new Point(p.name, center.x + scale * line[0] - dx, center.y + scale * line[1] - dy);
     }
 
     private static void testSquareSymmetries() {
@@ -1,3 +1,10 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * In algebra, a <b>group</b> is a set equipped with an operation that combines any two elements of the set to produce
  * a third element of the set, in such a way that the operation is associative, an identity element exists and every
@@ -49,17 +56,107 @@ public interface Group<T> {
 
     /**
      * This is a utility function, serving as the definition of exponentiation for this group. Exponentiation is defined
-     * as <code>exponent(t, 0)</code> being the <code>identity()</code> element, and <code>exponent(t, n)</code> being
-     * <code>binaryOperation(t, exponent(t, n-1))</code>.
+     * as <code>exponent(t, 0)</code> being the <code>identity()</code> element, <code>exponent(t, n)</code> being
+     * <code>binaryOperation(t, exponent(t, n-1))</code>, and <code>exponent(t, -n)</code> being
+     * <code>exponent(inverseOf(t), n)</code>.
+     * <p>
+     * The default implementation computes the power by repeated squaring, with at most <code>2 log2(|k|)</code>
+     * applications of the binary operation (and one <code>inverseOf</code> for a negative exponent), and without
+     * recursion.
      *
      * @param t the group element serving as the base.
      * @param k the integer exponent, indicating the number of times the binary operation is applied on <code>t</code>.
-     *          The exponent must be a non-negative integer value.
+     *          A negative exponent applies the operation on the inverse of <code>t</code> instead.
      * @return the result of the binary operation applied <code>k</code> times on <code>t</code>.
      */
     default T exponent(T t, int k) {
-        if (k < 0)
-            throw new IllegalArgumentException("The exponent must be a non-negative integer value.");
-        return k == 0 ? identity() : binaryOperation(t, exponent(t, k - 1));
+        long n = Math.abs((long) k); // -Integer.MIN_VALUE does not fit in an int
+        T base = k < 0 ? inverseOf(t) : t;
+        T result = null; // stands for identity(), so that it is never combined with anything
+        while (n > 0) {
+            if ((n & 1) != 0) result = result == null ? base : binaryOperation(result, base);
+            n >>= 1;
+            if (n > 0) base = binaryOperation(base, base);
+        }
+        return result == null ? identity() : result;
+    }
+
+    /**
+     * @return whether <code>t</code> is the identity element of this group. By default this compares it with
+     * <code>identity()</code> using <code>equals</code>; groups whose elements do not define a useful
+     * <code>equals</code> should override it.
+     */
+    default boolean isIdentity(T t) {
+        return Objects.equals(t, identity());
+    }
+
+    /**
+     * Computes the order of <code>t</code>, the smallest positive <code>n</code> for which
+     * <code>exponent(t, n)</code> is the identity, given any positive multiple of it. For a finite group the number
+     * of its elements is such a multiple. The order divides <code>multiple</code>, so it is built up one prime at a
+     * time: for each prime power <code>p^e</code> in <code>multiple</code>, <code>exponent(t, multiple / p^e)</code>
+     * has order <code>p^k</code> for the power <code>p^k</code> of <code>p</code> in the order of <code>t</code>, and
+     * <code>k</code> is found by raising it to <code>p</code> until it is the identity. That takes one
+     * <code>exponent</code> call per distinct prime factor, of <code>O(log multiple)</code> group operations, and
+     * <code>O(log multiple)</code> group operations in all for the powers of <code>p</code>, besides
+     * <code>O(sqrt(multiple))</code> integer divisions to factor <code>multiple</code>.
+     *
+     * @throws IllegalArgumentException if <code>multiple</code> is not positive, or if <code>exponent(t,
+     *                                  multiple)</code> is not the identity.
+     */
+    default int order(T t, int multiple) {
+        if (multiple <= 0) throw new IllegalArgumentException("The multiple must be a positive integer value.");
+        if (!isIdentity(exponent(t, multiple)))
+            throw new IllegalArgumentException("The order of the element does not divide " + multiple + ".");
+        int order = 1;
+        int rest = multiple; // the part of multiple not yet factored
+        for (int p = 2; rest > 1; p++) {
+            if ((long) p * p > rest) p = rest; // what is left is prime
+            if (rest % p != 0) continue;
+            int power = 1;
+            while (rest % p == 0) {
+                rest /= p;
+                power *= p;
+            }
+            for (T y = exponent(t, multiple / power); !isIdentity(y); y = exponent(y, p)) order *= p;
+        }
+        return order;
+    }
+
+    /**
+     * @return the cyclic subgroup generated by <code>generator</code>: the identity followed by its successive powers,
+     * up to (but excluding) the first power that is the identity again. The generator must have finite order.
+     */
+    default List<T> cyclicSubgroup(T generator) {
+        List<T> elements = new ArrayList<>();
+        elements.add(identity());
+        for (T power = generator; !isIdentity(power); power = binaryOperation(power, generator)) elements.add(power);
+        return elements;
+    }
+
+    /**
+     * Combines <code>elements</code> in order, <code>e1 * e2 * ... * en</code>, or returns the identity if there are
+     * none. Because the binary operation is associative, the list can be split into ordered chunks that are reduced
+     * concurrently on the common fork-join pool and then combined left to right; the order of the operands is kept, so
+     * this is correct for non-abelian groups too.
+     */
+    default T reduce(List<? extends T> elements) {
+        return reduce(elements.parallelStream());
+    }
+
+    /**
+     * Like {@link #reduce(List)}, for the elements of <code>elements</code> in encounter order. The stream is reduced
+     * sequentially or in parallel, as the caller set it up; the order of the operands is kept either way.
+     */
+    default T reduce(Stream<? extends T> elements) {
+        return elements.reduce(identity(), this::binaryOperation, this::binaryOperation);
+    }
+
+    /**
+     * @return a collector that reduces the elements of a stream with the binary operation of this group, in encounter
+     * order, also when the stream is parallel.
+     */
+    default Collector<T, ?, T> reducing() {
+        return Collectors.reducing(identity(), this::binaryOperation);
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+/**
+ * A group whose elements are <code>int</code>s, with primitive versions of the group operations so that computations
+ * over it never box. The boxed methods of <code>Group&lt;Integer&gt;</code> are implemented on top of the primitive
+ * ones, so an <code>IntGroup</code> can be used wherever a <code>Group&lt;Integer&gt;</code> is expected; going the
+ * other way, {@link #of(Group)} adapts any <code>Group&lt;Integer&gt;</code>.
+ */
+public interface IntGroup extends Group<Integer> {
+
+    /**
+     * The primitive form of {@link #binaryOperation(Object, Object)}.
+     */
+    int operateAsInt(int one, int other);
+
+    /**
+     * The primitive form of {@link #identity()}.
+     */
+    int identityAsInt();
+
+    /**
+     * The primitive form of {@link #inverseOf(Object)}.
+     */
+    int inverseAsInt(int t);
+
+    /**
+     * The primitive form of {@link #exponent(Object, int)}, computed by repeated squaring in the same way.
+     */
+    default int exponentAsInt(int t, int k) {
+        long n = Math.abs((long) k); // -Integer.MIN_VALUE does not fit in an int
+        int base = k < 0 ? inverseAsInt(t) : t;
+        int result = identityAsInt();
+        while (n > 0) {
+            if ((n & 1) != 0) result = operateAsInt(result, base);
+            n >>= 1;
+            if (n > 0) base = operateAsInt(base, base);
+        }
+        return result;
+    }
+
+    default boolean isIdentityAsInt(int t) {
+        return t == identityAsInt();
+    }
+
+    @Override
+    default Integer binaryOperation(Integer one, Integer other) {
+        return operateAsInt(one, other);
+    }
+
+    @Override
+    default Integer identity() {
+        return identityAsInt();
+    }
+
+    @Override
+    default Integer inverseOf(Integer t) {
+        return inverseAsInt(t);
+    }
+
+    @Override
+    default Integer exponent(Integer t, int k) {
+        return exponentAsInt(t, k);
+    }
+
+    @Override
+    default boolean isIdentity(Integer t) {
+        return t != null && isIdentityAsInt(t);
+    }
+
+    /**
+     * Writes <code>operateAsInt(ones[i], others[i])</code> to <code>out[i]</code> for every index of
+     * <code>ones</code>.
+     *
+     * @return <code>out</code>
+     */
+    default int[] operateAll(int[] ones, int[] others, int[] out) {
+        for (int i = 0; i < ones.length; i++) out[i] = operateAsInt(ones[i], others[i]);
+        return out;
+    }
+
+    /**
+     * Writes <code>exponentAsInt(ts[i], k)</code> to <code>out[i]</code> for every index of <code>ts</code>.
+     *
+     * @return <code>out</code>
+     */
+    default int[] exponentAll(int[] ts, int k, int[] out) {
+        for (int i = 0; i < ts.length; i++) out[i] = exponentAsInt(ts[i], k);
+        return out;
+    }
+
+    /**
+     * @return the product of all of <code>ts</code> in order, or the identity if there are none.
+     */
+    default int combineAll(int[] ts) {
+        int result = identityAsInt();
+        for (int t : ts) result = operateAsInt(result, t);
+        return result;
+    }
+
+    /**
+     * @return <code>group</code> itself if it is already an <code>IntGroup</code>, and otherwise a view of it whose
+     * primitive operations box, call it and unbox.
+     */
+    static IntGroup of(Group<Integer> group) {
+        if (group instanceof IntGroup) return (IntGroup) group;
+        return new IntGroup() {
+            @Override
+            public int operateAsInt(int one, int other) {
+                return group.binaryOperation(one, other);
+            }
+
+            @Override
+            public int identityAsInt() {
+                return group.identity();
+            }
+
+            @Override
+            public int inverseAsInt(int t) {
+                return group.inverseOf(t);
+            }
+
+            @Override
+            public int exponentAsInt(int t, int k) {
+                return group.exponent(t, k);
+            }
+
+            @Override
+            public boolean isIdentityAsInt(int t) {
+                return group.isIdentity(t);
+            }
+        };
+    }
+}
@@ -21,13 +21,32 @@ public class Point {
         return new StringJoiner(", ", "(", ")").add(name).add(Double.toString(x)).add(Double.toString(y)).toString();
     }
 
+    /**
+     * Two points are equal if they have the same name and their coordinates round to the same multiple of 0.001.
+     * Rounding (rather than comparing distances) keeps equality transitive and lets it agree with {@link #hashCode()},
+     * but it is not the same test as <code>Square.aboutEqual</code>: coordinates less than 0.001 apart on either side
+     * of a rounding boundary are about equal without being equal. Square validation therefore does not rely on it.
+     * Since the coordinates are mutable, a point must not be moved while it is a key in a hash-based collection.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Point)) return false;
         Point point = (Point) o;
-        if (Double.compare(point.x, x) != 0) return false;
-        if (Double.compare(point.y, y) != 0) return false;
+        if (snap(point.x) != snap(x)) return false;
+        if (snap(point.y) != snap(y)) return false;
         return name.equals(point.name);
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * name.hashCode() + Long.hashCode(snap(x))) + Long.hashCode(snap(y));
+    }
+
+    /**
+     * @return the coordinate rounded to a whole number of thousandths.
+     */
+    protected static long snap(double coordinate) {
+        return Math.round(coordinate * 1000);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+/**
+ * A regular polygon with any number (at least three) of vertices. The vertices are kept in counterclockwise order,
+ * starting from the one with the smallest angle about the center in <code>[0, 360)</code> degrees, as required by
+ * <code>Shape.toString()</code>. Angles and tolerances are those of <code>Square</code>, so for a square this is the
+ * top-right vertex, just as in <code>Square</code>.
+ */
+public class RegularPolygon implements Shape {
+    private final Point[] vertices;
+    private final Point center;
+
+    /**
+     * The constructor accepts the vertices of the polygon in counterclockwise order, starting from any of them; they
+     * are reordered to start from the vertex with the smallest angle.
+     * <p>
+     * If less than three points are provided, or if the points are not equally spaced counterclockwise around their
+     * centroid at a common distance from it, the constructor throws <code>java.lang.IllegalArgumentException</code>.
+     *
+     * @param vertices the array of vertices (i.e., <code>Point</code> instances) provided to the constructor.
+     */
+    public RegularPolygon(Point... vertices) {
+        int n = vertices.length;
+        if (n < 3) throw new IllegalArgumentException("A polygon must have at least three vertices.");
+
+        double cx = 0, cy = 0;
+        for (Point v : vertices) {
+            cx += v.x;
+            cy += v.y;
+        }
+        Point center = new Point("Center", cx / n, cy / n);
+
+        // vertex i must be vertex 0 turned by i / n of a full turn about the center
+        double dx = vertices[0].x - center.x, dy = vertices[0].y - center.y;
+        for (int i = 1; i < n; i++) {
+            double angle = 2 * Math.PI * i / n, cos = Math.cos(angle), sin = Math.sin(angle);
+            if (!Square.aboutEqual(vertices[i].x, center.x + cos * dx - sin * dy)
+                    || !Square.aboutEqual(vertices[i].y, center.y + sin * dx + cos * dy))
+                throw new IllegalArgumentException("The points do not form a regular polygon.");
+        }
+
+        this.vertices = shifted(vertices, center);
+        this.center = center;
+    }
+
+    /**
+     * Wraps vertices that are already known to form a regular polygon about <code>center</code>, in order.
+     */
+    private RegularPolygon(Point[] vertices, Point center) {
+        this.vertices = vertices;
+        this.center = center;
+    }
+
+    /**
+     * @return the polygon with the given vertices, which must be those of a valid polygon, in order, moved rigidly.
+     */
+    protected static RegularPolygon ofValidated(Point[] vertices, Point center) {
+        return new RegularPolygon(vertices, center);
+    }
+
+    protected Point[] getVertices() {
+        return vertices;
+    }
+
+    protected int size() {
+        return vertices.length;
+    }
+
+    /**
+     * @return the vertices, cyclically shifted so that the one with the smallest angle about <code>center</code> is
+     * first.
+     */
+    private static Point[] shifted(Point[] vertices, Point center) {
+        int first = 0;
+        double smallest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < vertices.length; i++) {
+            double angle = Square.angleOf(vertices[i].x, vertices[i].y, center.x, center.y);
+            if (angle < smallest) {
+                smallest = angle;
+                first = i;
+            }
+        }
+        Point[] shifted = new Point[vertices.length];
+        for (int i = 0; i < vertices.length; i++) shifted[i] = vertices[(first + i) % vertices.length];
+        return shifted;
+    }
+
+    @Override
+    public RegularPolygon rotateBy(int degrees) {
+        Transform rotation = Transform.rotation(degrees);
+        Point[] rotated = new Point[vertices.length];
+        for (int i = 0; i < rotated.length; i++) rotated[i] = rotation.apply(vertices[i], center, center);
+        return new RegularPolygon(shifted(rotated, center), center());
+    }
+
+    @Override
+    public RegularPolygon translateBy(double x, double y) {
+        Point[] translated = new Point[vertices.length];
+        for (int i = 0; i < translated.length; i++)
+            translated[i] = new Point(vertices[i].name, vertices[i].x + x, vertices[i].y + y);
+        return new RegularPolygon(translated, new Point(center.name, center.x + x, center.y + y));
+    }
+
+    @Override
+    public Point center() {
+        return new Point(center.name, center.x, center.y);
+    }
+
+    /**
+     * Two polygons are equal if their vertices are equal in order, as defined by <code>Point.equals</code>.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RegularPolygon)) return false;
+        return Arrays.equals(vertices, ((RegularPolygon) o).vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vertices);
+    }
+
+    @Override
+    public String toString() {
+        return ShapeWriter.appendVertices(new StringBuilder(32 * vertices.length), vertices).toString();
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes shapes in the format of <code>Square.toString()</code>, e.g.
+ * <code>[(D, 4.00, 4.00); (A, 1.00, 4.00); (B, 1.00, 1.00); (C, 4.00, 1.00)]</code>, into an <code>Appendable</code>
+ * (such as a <code>Writer</code> or <code>StringBuilder</code>) or a <code>ByteBuffer</code>.
+ * <p>
+ * Each shape is formatted into a reused buffer, with coordinates rounded by {@link #appendTwoDecimals}, and then copied
+ * to the target in one call, so writing a shape creates no intermediate <code>String</code>s. The output is identical
+ * to <code>String.format("%.2f")</code> in a locale that uses <code>'.'</code> as its decimal separator. A
+ * <code>ShapeWriter</code> is not safe for concurrent use.
+ */
+public class ShapeWriter {
+    private final Appendable out; // exactly one of out and bytes is set
+    private final ByteBuffer bytes;
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+    private CharsetEncoder encoder; // only needed for names that are not ASCII
+
+    public ShapeWriter(Appendable out) {
+        this.out = out;
+        this.bytes = null;
+    }
+
+    /**
+     * Writes UTF-8 into <code>bytes</code>, starting at its position. A shape that does not fit throws
+     * <code>java.nio.BufferOverflowException</code> without writing any of it.
+     */
+    public ShapeWriter(ByteBuffer bytes) {
+        this.out = null;
+        this.bytes = bytes;
+    }
+
+    public ShapeWriter write(Square square) throws IOException {
+        return emit(appendVertices(line, square.getVertices()));
+    }
+
+    public ShapeWriter write(RegularPolygon polygon) throws IOException {
+        return emit(appendVertices(line, polygon.getVertices()));
+    }
+
+    /**
+     * Writes a single point the way it appears as a vertex of a square, e.g. <code>(A, 1.00, 4.00)</code>.
+     */
+    public ShapeWriter write(Point point) throws IOException {
+        return emit(appendVertex(line, point));
+    }
+
+    public ShapeWriter newLine() throws IOException {
+        return emit(line.append('\n'));
+    }
+
+    protected static StringBuilder appendVertices(StringBuilder sb, Point[] vertices) {
+        sb.append('[');
+        for (int i = 0; i < vertices.length; i++) {
+            if (i > 0) sb.append("; ");
+            appendVertex(sb, vertices[i]);
+        }
+        return sb.append(']');
+    }
+
+    protected static StringBuilder appendVertex(StringBuilder sb, Point p) {
+        sb.append('(').append(p.name).append(", ");
+        appendTwoDecimals(sb, p.x).append(", ");
+        return appendTwoDecimals(sb, p.y).append(')');
+    }
+
+    /**
+     * Appends <code>value</code> with exactly two decimal places, as <code>String.format("%.2f", value)</code> does.
+     * That rounds the shortest decimal representation of the value (the digits of <code>Double.toString</code>)
+     * HALF_UP, rather than the exact binary value, so <code>1.005</code> becomes <code>1.01</code>. Negative values,
+     * including <code>-0.0</code>, keep their sign even when they round to zero.
+     * <p>
+     * The rounding is done in integer arithmetic. Only values whose hundredths lie within <code>1e-6</code> of a tie,
+     * where the two readings of the value could round differently, or values too large for a <code>long</code> count
+     * of hundredths to be exact, go through <code>BigDecimal</code>.
+     */
+    protected static StringBuilder appendTwoDecimals(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) return sb.append("NaN");
+        if (Double.isInfinite(value)) return sb.append(value > 0 ? "Infinity" : "-Infinity");
+        if (Double.doubleToRawLongBits(value) < 0) sb.append('-');
+        double magnitude = Math.abs(value);
+        double scaled = magnitude * 100;
+        if (scaled < 1e9) { // the product is then accurate to well within 1e-6
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (Math.abs(fraction - 0.5) > 1e-6) {
+                long hundredths = (long) floor + (fraction > 0.5 ? 1 : 0);
+                sb.append(hundredths / 100).append('.');
+                if (hundredths % 100 < 10) sb.append('0');
+                return sb.append(hundredths % 100);
+            }
+        }
+        return sb.append(new BigDecimal(Double.toString(magnitude)).setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    /**
+     * Copies the formatted shape to the target and clears the buffer, even if the copy fails. A shape that does not
+     * fit in the remaining space of a <code>ByteBuffer</code> target leaves the buffer unchanged.
+     */
+    private ShapeWriter emit(StringBuilder sb) throws IOException {
+        try {
+            int length = sb.length();
+            if (bytes != null) {
+                int ascii = 0;
+                while (ascii < length && sb.charAt(ascii) < 0x80) ascii++;
+                if (ascii == length) {
+                    if (bytes.remaining() < length) throw new BufferOverflowException();
+                    for (int i = 0; i < length; i++) bytes.put((byte) sb.charAt(i));
+                } else {
+                    if (encoder == null) encoder = StandardCharsets.UTF_8.newEncoder();
+                    int start = bytes.position();
+                    CoderResult result = encoder.reset().encode(CharBuffer.wrap(sb), bytes, true);
+                    if (!result.isUnderflow()) bytes.position(start); // drop the partial shape
+                    if (result.isOverflow()) throw new BufferOverflowException();
+                    if (result.isError()) result.throwException();
+                }
+            } else if (out instanceof Writer) {
+                if (chars.length < length) chars = new char[Math.max(length, 2 * chars.length)];
+                sb.getChars(0, length, chars, 0);
+                ((Writer) out).write(chars, 0, length);
+            } else {
+                out.append(sb, 0, length);
+            }
+            return this;
+        } finally {
+            sb.setLength(0);
+        }
+    }
+}
@@ -1,6 +1,4 @@
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 
 /**
  * The class impementing squares.
@@ -27,6 +25,9 @@ public class Square implements Shape {
     public Square(Point... vertices) {
         if (vertices.length < 4) throw new IllegalArgumentException("A square must have four vertices.");
 
+        checkVertices(vertices[0].x, vertices[0].y, vertices[1].x, vertices[1].y,
+                      vertices[2].x, vertices[2].y, vertices[3].x, vertices[3].y);
+
         Point d = vertices[0];
         Point a = vertices[1];
 
@@ -34,19 +35,6 @@ public class Square implements Shape {
         Point b = new Point(vertices[2].name, a.x + (d.y - a.y), a.y + (a.x - d.x));
         Point c = new Point(vertices[3].name, b.x + (d.x - a.x), b.y + (d.y - a.y));
 
-        Point b_candidate = vertices[2];
-        Point c_candidate = vertices[3];
-
-        if (!aboutEqual(b.x, b_candidate.x) || !aboutEqual(b.y, b_candidate.y) || !aboutEqual(c.x, c_candidate.x) || !aboutEqual(c.y, c_candidate.y))
-            throw new IllegalArgumentException("The points do not form a square.");
-
-        // additionally, if D must be the top-right vertex, then check that this is the case
-        Square square_candidate = _initUnchecked(vertices);
-        Point center = square_candidate.center();
-        Point minAnglePoint = getMinAnglePoint(square_candidate.vertices, center);
-        if (!aboutEqual(minAnglePoint.x, d.x) || !aboutEqual(minAnglePoint.y, d.y) || getMinAngleIndex(square_candidate.vertices, center) != 0)
-            throw new IllegalArgumentException("The first point must be the top-right vertex.");
-
         // copy the validated points to the vertices array
         // arraycopy can cause issues with mutability
         this.vertices[0] = d;
@@ -57,6 +45,39 @@ public class Square implements Shape {
         // round
     }
 
+    private Square() {
+    }
+
+    /**
+     * Runs the checks of the public constructor on the coordinates of the four vertices, given in the order the
+     * constructor takes them, so that code which moves squares without building them rejects the same squares.
+     *
+     * @throws IllegalArgumentException with the constructor's message, if the vertices do not form a square or the
+     *                                  first one is not the top-right vertex.
+     */
+    protected static void checkVertices(double dx, double dy, double ax, double ay,
+                                        double bx, double by, double cx, double cy) {
+        // calculate the correct position from the first two points
+        double x2 = ax + (dy - ay), y2 = ay + (ax - dx);
+        double x3 = x2 + (dx - ax), y3 = y2 + (dy - ay);
+        if (!aboutEqual(x2, bx) || !aboutEqual(y2, by) || !aboutEqual(x3, cx) || !aboutEqual(y3, cy))
+            throw new IllegalArgumentException("The points do not form a square.");
+
+        // additionally, D must be the top-right vertex: no other vertex has a smaller angle about the center
+        double centerX = (dx + bx) / 2, centerY = (dy + by) / 2;
+        double angle = angleOf(dx, dy, centerX, centerY);
+        if (angleOf(ax, ay, centerX, centerY) < angle || angleOf(bx, by, centerX, centerY) < angle
+                || angleOf(cx, cy, centerX, centerY) < angle)
+            throw new IllegalArgumentException("The first point must be the top-right vertex.");
+    }
+
+    /**
+     * Builds a square from vertices that are already known to be valid, in order and with the top-right vertex first,
+     * without repeating the checks done by the public constructor. The array is copied, but the points are not.
+     */
+    protected static Square ofValidated(Point... vertices) {
+        return new Square()._initUnchecked(vertices);
+    }
 
     private Square _initUnchecked(Point... vertices) {
         System.arraycopy(vertices, 0, this.vertices, 0, 4);
@@ -80,7 +101,7 @@ public class Square implements Shape {
     /**
      * Determines if two doubles are approximately equal.
      */
-    private static boolean aboutEqual(double a, double b) {
+    protected static boolean aboutEqual(double a, double b) {
         return Math.abs(a - b) < 0.001;
     }
 
@@ -95,13 +116,31 @@ public class Square implements Shape {
         return shifted;
     }
 
-    private static Point getMinAnglePoint(Point[] vertices, Point center) {
-        assert vertices.length > 0; // satisfy intellij
-        return Arrays.stream(vertices).map(p -> new Point(p.name, p.x - center.x, p.y - center.y)).min(Comparator.comparingDouble(p -> dModulo(Math.atan2(p.y, p.x), 2 * Math.PI))).map(p -> new Point(p.name, p.x + center.x, p.y + center.y)).get();
+    /**
+     * @return the angle of <code>(x, y)</code> about <code>(centerX, centerY)</code>, in <code>[0, 2 pi)</code>. A point
+     * within the tolerance of {@link #aboutEqual} of the ray pointing right from the center counts as angle 0 on
+     * either side of it, so a vertex on the center's horizontal line, as after a 45 degree rotation, is the top-right
+     * vertex however the rounding of the path that moved it there falls.
+     */
+    protected static double angleOf(double x, double y, double centerX, double centerY) {
+        if (aboutEqual(y, centerY) && x > centerX) return 0;
+        return dModulo(Math.atan2(y - centerY, x - centerX), 2 * Math.PI);
     }
 
+    /**
+     * Finds the vertex with the smallest angle about <code>center</code>; on a tie the first one wins.
+     */
     private static int getMinAngleIndex(Point[] vertices, Point center) {
-        return Arrays.asList(vertices).indexOf(getMinAnglePoint(vertices, center));
+        int min = 0;
+        double minAngle = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < vertices.length; i++) {
+            double angle = angleOf(vertices[i].x, vertices[i].y, center.x, center.y);
+            if (angle < minAngle) {
+                min = i;
+                minAngle = angle;
+            }
+        }
+        return min;
     }
 
     /**
@@ -115,17 +154,21 @@ public class Square implements Shape {
     }
 
 
+    /**
+     * Builds a square from the vertices of a square that has been moved rigidly, in their original cyclic order,
+     * reordering them so that the top-right vertex is first.
+     */
+    protected static Square ofMoved(Point[] moved, Point center) {
+        return new Square(shifted(moved, center));
+    }
+
     @Override
     public Square rotateBy(int degrees) {
-        // translate the square so that the center is at the origin
+        // rotate about the center in one step, so only the result is validated
         Point center = center();
-        Square translated = ((Square) translateBy(-center.x, -center.y));
-
-        // apply matrix rotation
-        Point[] rotated = Arrays.stream(translated.vertices).map(v -> new Point(v.name, v.x * Math.cos(Math.toRadians(degrees)) - v.y * Math.sin(Math.toRadians(degrees)), v.x * Math.sin(Math.toRadians(degrees)) + v.y * Math.cos(Math.toRadians(degrees)))).toArray(Point[]::new);
-
-        // translate back to the original position
-        return ((Square) new Square(shifted(rotated, new Point("Center", 0, 0))).translateBy(center.x, center.y));
+        Transform rotation = Transform.rotation(degrees);
+        Point[] rotated = Arrays.stream(vertices).map(v -> rotation.apply(v, center, center)).toArray(Point[]::new);
+        return ofMoved(rotated, center);
     }
 
     @Override
@@ -136,7 +179,22 @@ public class Square implements Shape {
 
     @Override
     public String toString() {
-        return Arrays.stream(vertices).map(p -> String.format("(%s, %.2f, %.2f)", p.name, p.x, p.y)).collect(Collectors.joining("; ", "[", "]"));
+        return ShapeWriter.appendVertices(new StringBuilder(32 * vertices.length), vertices).toString();
+    }
+
+    /**
+     * Two squares are equal if their vertices are equal in order, as defined by <code>Point.equals</code>.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Square)) return false;
+        return Arrays.equals(vertices, ((Square) o).vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vertices);
     }
 
     @Override
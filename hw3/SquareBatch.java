@@ -0,0 +1,183 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Many squares stored by index in flat arrays, so that one rotation or translation can be applied to all of them
+ * without creating any <code>Point</code> or <code>Square</code> objects. The bulk operations run as parallel loops
+ * on the common fork-join pool. <code>Square</code>s are only built by {@link #get(int)}.
+ * <p>
+ * Vertex <code>k</code> of square <code>s</code> lives in slot <code>4 * s + k</code> of the coordinate and name
+ * arrays, and stays in that slot for good. Instead of moving the vertices around after a rotation, the batch records
+ * which slot currently holds the top-right vertex, so the reordering done by <code>Square</code> costs one byte per
+ * square.
+ */
+public class SquareBatch {
+    private double[] xs = new double[32];
+    private double[] ys = new double[32];
+    private String[] names = new String[32];
+    private byte[] first = new byte[8]; // slot of the top-right vertex of each square
+    private int size;
+
+    public static SquareBatch of(Collection<? extends Square> squares) {
+        SquareBatch batch = new SquareBatch();
+        for (Square square : squares) batch.add(square);
+        return batch;
+    }
+
+    public void add(Square square) {
+        if (size == first.length) {
+            xs = Arrays.copyOf(xs, 8 * size);
+            ys = Arrays.copyOf(ys, 8 * size);
+            names = Arrays.copyOf(names, 8 * size);
+            first = Arrays.copyOf(first, 2 * size);
+        }
+        Point[] vertices = square.getVertices();
+        for (int k = 0; k < 4; k++) {
+            xs[4 * size + k] = vertices[k].x;
+            ys[4 * size + k] = vertices[k].y;
+            names[4 * size + k] = vertices[k].name;
+        }
+        first[size++] = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rotates every square counterclockwise by <code>degrees</code> about its own center, with the same result as
+     * <code>Square.rotateBy</code>.
+     *
+     * @throws IllegalArgumentException if <code>Square.rotateBy</code> would throw for any of the squares, in which
+     *                                  case the batch is left unchanged.
+     */
+    public void rotateAll(int degrees) {
+        double sin = Transform.sin(degrees), cos = Transform.cos(degrees);
+        updateAll(s -> rotate(s, sin, cos));
+    }
+
+    /**
+     * Applies <code>update</code> to every square in parallel. If it throws for any square, every square is put back
+     * as it was and the exception of the first such square is rethrown, so that, like an immutable
+     * <code>Square</code>, the batch is either moved as a whole or not at all.
+     */
+    private void updateAll(IntConsumer update) {
+        double[] oldXs = Arrays.copyOf(xs, 4 * size), oldYs = Arrays.copyOf(ys, 4 * size);
+        byte[] oldFirst = Arrays.copyOf(first, size);
+        // caught here rather than let through the stream, which would wrap it when it comes from another thread
+        int[] failedAt = {size};
+        IllegalArgumentException[] failure = new IllegalArgumentException[1];
+        IntStream.range(0, size).parallel().forEach(s -> {
+            try {
+                update.accept(s);
+            } catch (IllegalArgumentException e) {
+                synchronized (failure) {
+                    if (s < failedAt[0]) {
+                        failedAt[0] = s;
+                        failure[0] = e;
+                    }
+                }
+            }
+        });
+        if (failure[0] != null) {
+            System.arraycopy(oldXs, 0, xs, 0, oldXs.length);
+            System.arraycopy(oldYs, 0, ys, 0, oldYs.length);
+            System.arraycopy(oldFirst, 0, first, 0, oldFirst.length);
+            throw failure[0];
+        }
+    }
+
+    private void rotate(int s, double sin, double cos) {
+        int base = 4 * s, top = base + first[s], bottom = base + (first[s] + 2 & 3);
+        double cx = (xs[top] + xs[bottom]) / 2, cy = (ys[top] + ys[bottom]) / 2;
+        for (int i = base; i < base + 4; i++) {
+            double dx = xs[i] - cx, dy = ys[i] - cy;
+            xs[i] = cos * dx - sin * dy + cx;
+            ys[i] = sin * dx + cos * dy + cy;
+        }
+        // the top-right vertex is the one with the smallest angle in [0, 2 pi) about the old center; on a tie the
+        // one that comes first in the old order wins, as in Square
+        int best = first[s];
+        double bestAngle = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < 4; k++) {
+            int slot = first[s] + k & 3;
+            double angle = Square.angleOf(xs[base + slot], ys[base + slot], cx, cy);
+            if (angle < bestAngle) {
+                bestAngle = angle;
+                best = slot;
+            }
+        }
+        first[s] = (byte) best;
+        check(s);
+        squareUp(s);
+    }
+
+    /**
+     * Validates square <code>s</code> as the <code>Square</code> constructor would, before its last two vertices are
+     * recomputed.
+     */
+    private void check(int s) {
+        int d = 4 * s + first[s], a = 4 * s + (first[s] + 1 & 3);
+        int b = 4 * s + (first[s] + 2 & 3), c = 4 * s + (first[s] + 3 & 3);
+        try {
+            Square.checkVertices(xs[d], ys[d], xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Square " + s + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recomputes the last two vertices of square <code>s</code> from the first two, as the <code>Square</code>
+     * constructor does, so that the batch stays bit-for-bit equal to the squares it stands for.
+     */
+    private void squareUp(int s) {
+        int d = 4 * s + first[s], a = 4 * s + (first[s] + 1 & 3);
+        int b = 4 * s + (first[s] + 2 & 3), c = 4 * s + (first[s] + 3 & 3);
+        xs[b] = xs[a] + (ys[d] - ys[a]);
+        ys[b] = ys[a] + (xs[a] - xs[d]);
+        xs[c] = xs[b] + (xs[d] - xs[a]);
+        ys[c] = ys[b] + (ys[d] - ys[a]);
+    }
+
+    /**
+     * Moves every square by <code>(dx, dy)</code>, with the same result as <code>Square.translateBy</code>. The order of
+     * the vertices does not change.
+     *
+     * @throws IllegalArgumentException if <code>Square.translateBy</code> would throw for any of the squares, in which
+     *                                  case the batch is left unchanged.
+     */
+    public void translateAll(double dx, double dy) {
+        updateAll(s -> {
+            for (int i = 4 * s; i < 4 * s + 4; i++) {
+                xs[i] += dx;
+                ys[i] += dy;
+            }
+            check(s);
+            squareUp(s);
+        });
+    }
+
+    /**
+     * Builds square <code>s</code>, with the top-right vertex first. The vertices were only moved rigidly since they
+     * were validated, so they are not checked again.
+     */
+    public Square get(int s) {
+        if (s < 0 || s >= size) throw new IndexOutOfBoundsException("square " + s + " of " + size);
+        Point[] vertices = new Point[4];
+        for (int k = 0; k < 4; k++) {
+            int slot = 4 * s + (first[s] + k & 3);
+            vertices[k] = new Point(names[slot], xs[slot], ys[slot]);
+        }
+        return Square.ofValidated(vertices);
+    }
+
+    public List<Square> squares() {
+        List<Square> squares = new ArrayList<>(size);
+        for (int s = 0; s < size; s++) squares.add(get(s));
+        return squares;
+    }
+}
@@ -1,39 +1,116 @@
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * The symmetries of a square form the dihedral group D4. A square is stored as its four vertices in counterclockwise
+ * order starting from the top-right one, and every symmetry maps that set of positions onto itself, so each symmetry
+ * is just a relabelling: the vertex at position <code>i</code> of the image is the one at position
+ * <code>PERMUTATIONS[k][i]</code> of the original, moved to the coordinates of position <code>i</code>. No rotation is
+ * actually computed, so the images are exact.
+ */
 public class SquareSymmetries implements Symmetries<Square> {
 
+    // in the order returned by symmetriesOf: id, r1, r2, r3, fc, fv, fd, fh
+    private static final int[][] PERMUTATIONS = {
+            {0, 1, 2, 3}, // identity
+            {3, 0, 1, 2}, // rotate by 90
+            {2, 3, 0, 1}, // rotate by 180
+            {1, 2, 3, 0}, // rotate by 270
+            {2, 1, 0, 3}, // flip across the diagonal through positions 1 and 3
+            {3, 2, 1, 0}, // flip vertically, across the horizontal axis
+            {0, 3, 2, 1}, // flip across the diagonal through positions 0 and 2
+            {1, 0, 3, 2}  // flip horizontally, across the vertical axis
+    };
+
+    /**
+     * Two squares are symmetric if one is the image of the other under some symmetry: they occupy the same position
+     * (up to the tolerance used by <code>Square</code>) and their vertex names differ by one of the permutations of
+     * D4. No squares are built.
+     */
     @Override
     public boolean areSymmetric(Square s1, Square s2) {
-        // assumes that point names are important
-        return symmetriesOf(s1).contains(s2);
+        Point[] v1 = s1.getVertices();
+        Point[] v2 = s2.getVertices();
+        for (int i = 0; i < 4; i++)
+            if (!Square.aboutEqual(v1[i].x, v2[i].x) || !Square.aboutEqual(v1[i].y, v2[i].y)) return false;
+        for (int[] permutation : PERMUTATIONS)
+            if (isImage(v1, v2, permutation)) return true;
+        return false;
+    }
 
-        // if not, compare each set of points by their coordinates
-        // (not implemented)
+    private static boolean isImage(Point[] original, Point[] image, int[] permutation) {
+        for (int i = 0; i < 4; i++)
+            if (!image[i].name.equals(original[permutation[i]].name)) return false;
+        return true;
     }
 
     @Override
     public List<Square> symmetriesOf(Square square) {
-        Square id, r1, r2, r3, fv, fh, fd, fc;
-
-        id = square;
-        r1 = square.rotateBy(90);
-        r2 = square.rotateBy(180);
-        r3 = square.rotateBy(270);
+        Square[] images = new Square[PERMUTATIONS.length];
+        images[0] = square;
+        for (int k = 1; k < images.length; k++) images[k] = imageOf(square, PERMUTATIONS[k]);
+        return Arrays.asList(images);
+    }
 
-        // swap 0 and 2
+    /**
+     * Returns the canonical representative of the symmetry class of <code>square</code>: the image whose vertex names,
+     * read in order, come first lexicographically. Only the chosen image is built.
+     * <p>
+     * Symmetric squares normally share a canonical form, so it can serve as a hash key for their class, but the two
+     * tests are not the same at the edges: canonical forms compare with <code>Point.equals</code>, which rounds
+     * coordinates to thousandths, while {@link #areSymmetric} allows <code>Square.aboutEqual</code>'s tolerance. Two
+     * squares whose coordinates differ slightly across a rounding boundary can be symmetric and still get different
+     * forms.
+     */
+    public Square canonicalOf(Square square) {
         Point[] vertices = square.getVertices();
-        Point d = vertices[0];
-        Point b = vertices[2];
+        int best = 0;
+        for (int k = 1; k < PERMUTATIONS.length; k++)
+            if (compareNames(vertices, PERMUTATIONS[k], PERMUTATIONS[best]) < 0) best = k;
+        return best == 0 ? square : imageOf(square, PERMUTATIONS[best]);
+    }
+
+    private static int compareNames(Point[] vertices, int[] p, int[] q) {
+        for (int i = 0; i < 4; i++) {
+            int c = vertices[p[i]].name.compareTo(vertices[q[i]].name);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * Groups <code>squares</code> into symmetry classes, keyed by their canonical forms, so squares are only grouped
+     * together if their coordinates round to the same thousandths. A parallel stream is grouped concurrently.
+     */
+    public Map<Square, List<Square>> classify(Stream<? extends Square> squares) {
+        return squares.isParallel() ? squares.collect(concurrentClassifier()) : squares.collect(classifier());
+    }
 
-        Point d_new = new Point(d.name, b.x, b.y);
-        Point b_new = new Point(b.name, d.x, d.y);
+    public Collector<Square, ?, Map<Square, List<Square>>> classifier() {
+        return Collectors.groupingBy(this::canonicalOf);
+    }
 
-        fc = new Square(b_new, vertices[1], d_new, vertices[3]);
-        fv = fc.rotateBy(90);
-        fd = fc.rotateBy(180);
-        fh = fc.rotateBy(270);
+    /**
+     * Like {@link #classifier()}, but all threads of a parallel stream add to one concurrent map, so the order of the
+     * squares within a class is not kept.
+     */
+    public Collector<Square, ?, ConcurrentMap<Square, List<Square>>> concurrentClassifier() {
+        return Collectors.groupingByConcurrent(this::canonicalOf);
+    }
 
-        return Arrays.asList(id, r1, r2, r3, fc, fv, fd, fh);
+    /**
+     * @return the image of <code>square</code> under the symmetry with the given vertex permutation.
+     */
+    protected static Square imageOf(Square square, int[] permutation) {
+        Point[] vertices = square.getVertices();
+        Point[] image = new Point[4];
+        for (int i = 0; i < 4; i++)
+            image[i] = new Point(vertices[permutation[i]].name, vertices[i].x, vertices[i].y);
+        return Square.ofValidated(image);
     }
 }
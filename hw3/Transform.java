@@ -0,0 +1,106 @@
+/**
+ * An immutable affine transformation of the plane, mapping <code>(x, y)</code> to
+ * <code>(a * x + b * y + tx, c * x + d * y + ty)</code>. Rotations and translations compose into a single transform,
+ * so a chain of them can be applied to a shape's points in one pass.
+ * <p>
+ * Rotations take whole degrees, like <code>Shape.rotateBy</code>, and read their sine and cosine from a table.
+ * Multiples of 90 degrees use exactly 0 and &plusmn;1, so quarter turns add no rounding error.
+ */
+public final class Transform {
+
+    public static final Transform IDENTITY = new Transform(1, 0, 0, 1, 0, 0);
+
+    private static final double[] SIN = new double[360];
+    private static final double[] COS = new double[360];
+
+    static {
+        for (int degrees = 0; degrees < 360; degrees++) {
+            SIN[degrees] = Math.sin(Math.toRadians(degrees));
+            COS[degrees] = Math.cos(Math.toRadians(degrees));
+        }
+        for (int degrees = 0; degrees < 360; degrees += 90) {
+            SIN[degrees] = degrees == 90 ? 1 : degrees == 270 ? -1 : 0;
+            COS[degrees] = degrees == 0 ? 1 : degrees == 180 ? -1 : 0;
+        }
+    }
+
+    private final double a, b, c, d;
+    private final double tx, ty;
+
+    private Transform(double a, double b, double c, double d, double tx, double ty) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.tx = tx;
+        this.ty = ty;
+    }
+
+    public static Transform translation(double x, double y) {
+        return new Transform(1, 0, 0, 1, x, y);
+    }
+
+    /**
+     * @return a counterclockwise rotation by <code>degrees</code> about the origin.
+     */
+    public static Transform rotation(int degrees) {
+        double sin = sin(degrees), cos = cos(degrees);
+        return new Transform(cos, -sin, sin, cos, 0, 0);
+    }
+
+    /**
+     * @return a counterclockwise rotation by <code>degrees</code> about the point <code>(x, y)</code>.
+     */
+    public static Transform rotation(int degrees, double x, double y) {
+        double sin = sin(degrees), cos = cos(degrees);
+        return new Transform(cos, -sin, sin, cos, x - cos * x + sin * y, y - sin * x - cos * y);
+    }
+
+    static double sin(int degrees) {
+        return SIN[Math.floorMod(degrees, 360)];
+    }
+
+    static double cos(int degrees) {
+        return COS[Math.floorMod(degrees, 360)];
+    }
+
+    /**
+     * @return the transform that applies this transform first and then <code>next</code>.
+     */
+    public Transform then(Transform next) {
+        return new Transform(next.a * a + next.b * c, next.a * b + next.b * d,
+                             next.c * a + next.d * c, next.c * b + next.d * d,
+                             next.a * tx + next.b * ty + next.tx, next.c * tx + next.d * ty + next.ty);
+    }
+
+    public Transform thenTranslate(double x, double y) {
+        return new Transform(a, b, c, d, tx + x, ty + y);
+    }
+
+    public Transform thenRotate(int degrees, double x, double y) {
+        return then(rotation(degrees, x, y));
+    }
+
+    /**
+     * @return a new point with the same name as <code>p</code>, at the image of its coordinates.
+     */
+    public Point apply(Point p) {
+        return new Point(p.name, a * p.x + b * p.y + tx, c * p.x + d * p.y + ty);
+    }
+
+    /**
+     * Applies the linear part of this transform to <code>p - from</code> and adds <code>to</code>. When this transform
+     * maps <code>from</code> to <code>to</code> the result equals <code>apply(p)</code>, but points placed
+     * symmetrically about <code>from</code> stay exactly symmetric about <code>to</code>, which
+     * <code>Square</code>'s validation depends on.
+     */
+    public Point apply(Point p, Point from, Point to) {
+        double dx = p.x - from.x, dy = p.y - from.y;
+        return new Point(p.name, a * dx + b * dy + to.x, c * dx + d * dy + to.y);
+    }
+
+    @Override
+    public String toString() {
+        return "[[" + a + ", " + b + ", " + tx + "], [" + c + ", " + d + ", " + ty + "]]";
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * A square with a pending chain of rotations and translations. Each <code>rotateBy</code> or
+ * <code>translateBy</code> only composes one more step into a {@link Transform}; the vertices are moved, reordered and
+ * validated once, when {@link #toSquare()} (or <code>toString()</code>) needs the result.
+ */
+public class TransformedSquare implements Shape {
+    private final Square original;
+    private final Transform transform;
+    private final Point center; // image of the original center, tracked exactly
+
+    public TransformedSquare(Square original) {
+        this(original, Transform.IDENTITY, original.center());
+    }
+
+    private TransformedSquare(Square original, Transform transform, Point center) {
+        this.original = original;
+        this.transform = transform;
+        this.center = center;
+    }
+
+    protected Transform getTransform() {
+        return transform;
+    }
+
+    @Override
+    public TransformedSquare rotateBy(int degrees) {
+        // rotating about the center leaves it where it is
+        return new TransformedSquare(original, transform.thenRotate(degrees, center.x, center.y), center);
+    }
+
+    @Override
+    public TransformedSquare translateBy(double x, double y) {
+        return new TransformedSquare(original, transform.thenTranslate(x, y),
+                                     new Point(center.name, center.x + x, center.y + y));
+    }
+
+    @Override
+    public Point center() {
+        return new Point(center.name, center.x, center.y);
+    }
+
+    /**
+     * Applies the pending transform to the original vertices.
+     *
+     * @throws IllegalArgumentException if the result does not pass <code>Square</code>'s validation.
+     */
+    public Square toSquare() {
+        Point[] vertices = original.getVertices();
+        Point from = original.center();
+        Point[] moved = new Point[vertices.length];
+        for (int i = 0; i < vertices.length; i++) moved[i] = transform.apply(vertices[i], from, center);
+        return Square.ofMoved(moved, center);
+    }
+
+    @Override
+    public String toString() {
+        return toSquare().toString();
+    }
+}
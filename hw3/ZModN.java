@@ -0,0 +1,52 @@
+/**
+ * The integers modulo <code>n</code> under addition, with elements <code>0</code> to <code>n - 1</code>. Any other
+ * <code>int</code> passed in stands for the element it is congruent to; results are always in range.
+ */
+public class ZModN implements IntGroup {
+    private final int n;
+
+    public ZModN(int n) {
+        if (n < 1) throw new IllegalArgumentException("The modulus must be a positive integer value.");
+        this.n = n;
+    }
+
+    public int modulus() {
+        return n;
+    }
+
+    /**
+     * @return the element of this group that <code>x</code> is congruent to.
+     */
+    public int elementOf(int x) {
+        return x >= 0 && x < n ? x : Math.floorMod(x, n);
+    }
+
+    @Override
+    public int operateAsInt(int x, int y) {
+        x = elementOf(x);
+        y = elementOf(y);
+        int sum = x - (n - y); // cannot overflow, unlike x + y - n
+        return sum < 0 ? sum + n : sum;
+    }
+
+    @Override
+    public int identityAsInt() {
+        return 0;
+    }
+
+    @Override
+    public int inverseAsInt(int x) {
+        x = elementOf(x);
+        return x == 0 ? 0 : n - x;
+    }
+
+    @Override
+    public boolean isIdentityAsInt(int x) {
+        return elementOf(x) == 0;
+    }
+
+    @Override
+    public int exponentAsInt(int x, int k) {
+        return (int) Math.floorMod((long) x * k, (long) n);
+    }
+}
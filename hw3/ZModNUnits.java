@@ -0,0 +1,77 @@
+/**
+ * The units of the integers modulo <code>n</code> (those coprime to <code>n</code>) under multiplication. Any
+ * <code>int</code> passed in stands for the residue it is congruent to; results are always in <code>[0, n)</code>.
+ */
+public class ZModNUnits implements IntGroup {
+    private final int n;
+
+    public ZModNUnits(int n) {
+        if (n < 1) throw new IllegalArgumentException("The modulus must be a positive integer value.");
+        this.n = n;
+    }
+
+    public int modulus() {
+        return n;
+    }
+
+    /**
+     * @return the number of units, Euler's totient of the modulus. Every element's order divides it.
+     */
+    public int size() {
+        int phi = n, rest = n;
+        for (int p = 2; (long) p * p <= rest; p++) {
+            if (rest % p != 0) continue;
+            while (rest % p == 0) rest /= p;
+            phi -= phi / p;
+        }
+        if (rest > 1) phi -= phi / rest;
+        return phi;
+    }
+
+    public boolean isUnit(int x) {
+        return gcd(Math.floorMod(x, n), n) == 1;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public int operateAsInt(int x, int y) {
+        return (int) Math.floorMod((long) x * y, (long) n);
+    }
+
+    @Override
+    public int identityAsInt() {
+        return 1 % n;
+    }
+
+    @Override
+    public boolean isIdentityAsInt(int x) {
+        return Math.floorMod(x, n) == identityAsInt();
+    }
+
+    /**
+     * Finds the inverse with the extended Euclidean algorithm.
+     *
+     * @throws IllegalArgumentException if <code>x</code> is not a unit modulo <code>n</code>.
+     */
+    @Override
+    public int inverseAsInt(int x) {
+        long r0 = n, r1 = Math.floorMod(x, n), s0 = 0, s1 = 1;
+        while (r1 != 0) {
+            long q = r0 / r1, r = r0 - q * r1, s = s0 - q * s1;
+            r0 = r1;
+            r1 = r;
+            s0 = s1;
+            s1 = s;
+        }
+        if (r0 != 1) throw new IllegalArgumentException(x + " is not a unit modulo " + n + ".");
+        return (int) Math.floorMod(s0, (long) n);
+    }
+}
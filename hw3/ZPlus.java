@@ -1,22 +1,22 @@
-public class ZPlus implements Group<Integer> {
+public class ZPlus implements IntGroup {
 
     @Override
-    public Integer binaryOperation(Integer x, Integer y) {
+    public int operateAsInt(int x, int y) {
         return x + y;
     }
 
     @Override
-    public Integer identity() {
+    public int identityAsInt() {
         return 0;
     }
 
     @Override
-    public Integer inverseOf(Integer x) {
+    public int inverseAsInt(int x) {
         return -x;
     }
 
     @Override
-    public Integer exponent(Integer x, int k) {
+    public int exponentAsInt(int x, int k) {
         return x * k;
     }
 }
@@ -1,5 +1,7 @@
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -32,14 +34,83 @@ public class BijectionGroup {
         arr[j] = temp;
     }
 
+    /**
+     * The sorted elements of a domain, with the position of each, so that a bijection of the domain
+     * can be stored as a <code>Permutation</code> of positions.
+     */
+    private static final class Domain<T> {
+        final List<T> ordered;
+        final Map<T, Integer> index = new HashMap<>();
+
+        Domain(Set<T> domain) {
+            this.ordered = domain.stream().sorted().collect(Collectors.toList());
+            for (int i = 0; i < ordered.size(); i++) index.put(ordered.get(i), i);
+        }
+
+        int indexOf(T t) {
+            Integer i = index.get(t);
+            if (i == null) throw new IllegalArgumentException(t + " is not in the domain.");
+            return i;
+        }
+
+        /**
+         * @return the permutation of positions behind <code>f</code>, read straight from a
+         * <code>Bijection</code> of this domain and otherwise found by applying <code>f</code> to every
+         * element.
+         */
+        Permutation permutationOf(Function<T, T> f) {
+            if (f instanceof Bijection && ((Bijection<?>) f).domain.ordered.equals(ordered))
+                return ((Bijection<?>) f).permutation;
+            int[] images = new int[ordered.size()];
+            for (int i = 0; i < images.length; i++) images[i] = indexOf(f.apply(ordered.get(i)));
+            return Permutation.of(images);
+        }
+    }
+
     // type Bijection<T> = Function<T, T>;
-    public static <T> Set<Function<T, T>> bijectionsOf(Set<T> domain) {
-        List<T> orderedDomain = domain.stream().sorted().collect(Collectors.toList());
+    /**
+     * A bijection of a domain, backed by a permutation of the positions of its elements, so that it
+     * is applied with two lookups. Bijections of the same domain are equal if they have the same
+     * values.
+     */
+    private static final class Bijection<T> implements Function<T, T> {
+        final Domain<T> domain;
+        final Permutation permutation;
+
+        Bijection(Domain<T> domain, Permutation permutation) {
+            this.domain = domain;
+            this.permutation = permutation;
+        }
 
-        // SAFETY: orderedDomain is List<T>, so orderedDomain.toArray() is T[].
-        @SuppressWarnings("unchecked") T[] orderedDomainArray = (T[]) orderedDomain.toArray();
+        @Override
+        public T apply(T t) {
+            return domain.ordered.get(permutation.apply(domain.indexOf(t)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Bijection)) return false;
+            Bijection<?> other = (Bijection<?>) o;
+            return permutation.equals(other.permutation) && domain.ordered.equals(other.domain.ordered);
+        }
 
-        return permutations(orderedDomainArray).stream().map(perm -> (Function<T, T>) t -> perm[orderedDomain.indexOf(t)]).collect(Collectors.toSet());
+        @Override
+        public int hashCode() {
+            return permutation.hashCode();
+        }
+    }
+
+    public static <T> Set<Function<T, T>> bijectionsOf(Set<T> domain) {
+        Domain<T> ordered = new Domain<>(domain);
+        Integer[] positions = new Integer[domain.size()];
+        for (int i = 0; i < positions.length; i++) positions[i] = i;
+
+        return permutations(positions).stream().map(perm -> {
+            int[] images = new int[perm.length];
+            for (int i = 0; i < images.length; i++) images[i] = perm[i];
+            return (Function<T, T>) new Bijection<>(ordered, Permutation.of(images));
+        }).collect(Collectors.toSet());
     }
 
     public static void main(String... args) {
@@ -59,30 +130,47 @@ public class BijectionGroup {
 
     }
 
+    /**
+     * @return the group of bijections of <code>domain</code> with its multiplication table worked out, so
+     * that composing and inverting bijections are table lookups. Bijections are told apart by their
+     * values on the domain. There are <code>n!</code> of them, so this is only practical for small
+     * domains.
+     */
+    public static <T> FiniteGroup<Function<T, T>> finiteBijectionGroup(Set<T> domain) {
+        Domain<T> ordered = new Domain<>(domain);
+        return FiniteGroup.of(bijectionGroup(domain), bijectionsOf(domain), ordered::permutationOf);
+    }
+
+    /**
+     * The group of bijections of <code>domain</code> under composition. Every operation works on the
+     * permutations behind the bijections, in <code>O(n)</code> time, and returns bijections backed by
+     * permutations. Any other function passed in is read into a permutation first.
+     */
     private static <T> Group<Function<T, T>> bijectionGroup(Set<T> domain) {
+        Domain<T> ordered = new Domain<>(domain);
+        Group<Permutation> permutations = Permutation.symmetricGroup(domain.size());
         return new Group<Function<T, T>>() {
             @Override
             public Function<T, T> binaryOperation(Function<T, T> one, Function<T, T> other) {
                 // f, g -> f(g(x))
-                return one.compose(other);
+                return new Bijection<>(ordered, permutations.binaryOperation(ordered.permutationOf(one),
+                                                                            ordered.permutationOf(other)));
             }
 
             @Override
             public Function<T, T> identity() {
-                return Function.identity();
+                return new Bijection<>(ordered, permutations.identity());
             }
 
             @Override
-            public Function<T, T> inverseOf(Function<T, T> ttFunction) {
-                List<T> orderedDomain = domain.stream().sorted().collect(Collectors.toList());
+            public boolean isIdentity(Function<T, T> f) {
+                return permutations.isIdentity(ordered.permutationOf(f));
+            }
 
-                List<T> fValues = orderedDomain.stream().map(ttFunction).collect(Collectors.toList());
-                return bijectionsOf(domain).stream().filter(biject -> {
-                    List<T> gValues = fValues.stream().map(biject).collect(Collectors.toList());
-                    return gValues.equals(orderedDomain);
-                }).findFirst().get();
+            @Override
+            public Function<T, T> inverseOf(Function<T, T> ttFunction) {
+                return new Bijection<>(ordered, permutations.inverseOf(ordered.permutationOf(ttFunction)));
             }
         };
     }
 }
-
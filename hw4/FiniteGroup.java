@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A finite group with its multiplication (Cayley) table worked out in advance. The elements are
+ * numbered <code>0</code> to <code>size() - 1</code> once, every product of two of them is computed
+ * with the wrapped group's <code>binaryOperation</code> and stored by index, and each row's
+ * inverse is noted as the row is filled. After that, products and inverses are array lookups, and the elements
+ * returned are always the enumerated instances.
+ * <p>
+ * Elements are matched to their indices by a key function, so that elements that are equal in the
+ * group but not by <code>equals</code> (such as two functions with the same values) share an index.
+ * <p>
+ * The table takes <code>4 * size()^2</code> bytes. It can either be kept on the heap or be written to
+ * a memory-mapped file, whose pages the operating system keeps in memory only while they are used.
+ *
+ * @param <T> the type of the group elements.
+ */
+public class FiniteGroup<T> implements Group<T> {
+    // rows of the mapped table are grouped into mappings of at most this many bytes
+    private static final long MAPPING_SIZE = 1L << 30;
+
+    private final List<T> elements;
+    private final Function<? super T, ?> key;
+    private final Map<Object, Integer> indexByKey = new HashMap<>();
+    private final Map<T, Integer> indexByInstance = new IdentityHashMap<>();
+    private final int identity;
+    private final int[] inverses;
+
+    // exactly one of these holds the table
+    private final int[][] table;
+    private final MappedByteBuffer[] mappings;
+    private final int rowsPerMapping;
+
+    private FiniteGroup(Group<T> group, Collection<? extends T> elements, Function<? super T, ?> key,
+                        Path file) throws IOException {
+        this.elements = new ArrayList<>(elements);
+        this.key = key;
+        int n = this.elements.size();
+        if (n == 0) throw new IllegalArgumentException("A group must have at least one element.");
+        for (int i = 0; i < n; i++) {
+            T element = this.elements.get(i);
+            if (indexByKey.putIfAbsent(key.apply(element), i) != null)
+                throw new IllegalArgumentException("Duplicate element: " + element);
+            indexByInstance.put(element, i);
+        }
+
+        this.identity = indexOf(group.identity());
+        this.inverses = new int[n];
+        Arrays.fill(inverses, -1);
+
+        if (file == null) {
+            this.table = new int[n][];
+            this.mappings = null;
+            this.rowsPerMapping = n;
+        } else {
+            // a row is never split between mappings, so it must fit in one
+            if (4L * n > MAPPING_SIZE)
+                throw new IllegalArgumentException("Rows of " + n + " elements are too large to map.");
+            this.table = null;
+            this.rowsPerMapping = (int) Math.min(n, MAPPING_SIZE / (4L * n));
+            this.mappings = new MappedByteBuffer[(n + rowsPerMapping - 1) / rowsPerMapping];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int m = 0; m < mappings.length; m++) {
+                    long first = (long) m * rowsPerMapping;
+                    long rows = Math.min(rowsPerMapping, n - first);
+                    mappings[m] = channel.map(FileChannel.MapMode.READ_WRITE, 4L * n * first,
+                                              4L * n * rows);
+                }
+            }
+        }
+
+        // rows are independent, so they are filled in parallel; each row also yields its element's inverse
+        IntStream.range(0, n).parallel().forEach(i -> fillRow(group, i));
+        for (int i = 0; i < n; i++)
+            if (inverses[i] < 0) throw new IllegalArgumentException("No inverse for " + elementAt(i));
+    }
+
+    private void fillRow(Group<T> group, int i) {
+        int n = elements.size();
+        int[] row = new int[n];
+        T one = elements.get(i);
+        for (int j = 0; j < n; j++) {
+            row[j] = indexOf(group.binaryOperation(one, elements.get(j)));
+            if (row[j] == identity) inverses[i] = j;
+        }
+        if (table != null) {
+            table[i] = row;
+        } else {
+            // ByteBuffer is not thread-safe, so each row writes through its own view of the mapping
+            ByteBuffer mapping = mappings[i / rowsPerMapping].duplicate();
+            int offset = 4 * n * (i % rowsPerMapping);
+            for (int j = 0; j < n; j++) mapping.putInt(offset + 4 * j, row[j]);
+        }
+    }
+
+    /**
+     * Builds the table on the heap.
+     *
+     * @param group    the group whose binary operation and identity are tabulated.
+     * @param elements all the elements of the group, each exactly once.
+     * @param key      maps every element to a value that is equal, by <code>equals</code>, exactly for
+     *                 elements that are equal in the group.
+     */
+    public static <T> FiniteGroup<T> of(Group<T> group, Collection<? extends T> elements,
+                                        Function<? super T, ?> key) {
+        try {
+            return new FiniteGroup<>(group, elements, key, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not reachable without a file
+        }
+    }
+
+    /**
+     * Like {@link #of(Group, Collection, Function)}, but the table is written to <code>file</code>,
+     * replacing its contents, and read back through memory mappings. Each row must fit in one
+     * mapping, which limits the group to about 268 million elements.
+     */
+    public static <T> FiniteGroup<T> onDisk(Group<T> group, Collection<? extends T> elements,
+                                            Function<? super T, ?> key, Path file) throws IOException {
+        return new FiniteGroup<>(group, elements, key, file);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * @return the index of <code>t</code>.
+     * @throws IllegalArgumentException if <code>t</code> is not an element of this group.
+     */
+    public int indexOf(T t) {
+        Integer index = indexByInstance.get(t);
+        if (index == null) index = indexByKey.get(key.apply(t));
+        if (index == null) throw new IllegalArgumentException("Not an element of this group: " + t);
+        return index;
+    }
+
+    public T elementAt(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * @return the index of the product of the elements with indices <code>i</code> and <code>j</code>.
+     */
+    public int operate(int i, int j) {
+        if (table != null) return table[i][j];
+        int n = elements.size();
+        return mappings[i / rowsPerMapping].getInt(4 * n * (i % rowsPerMapping) + 4 * j);
+    }
+
+    public int inverse(int i) {
+        return inverses[i];
+    }
+
+    public int identityIndex() {
+        return identity;
+    }
+
+    @Override
+    public T binaryOperation(T one, T other) {
+        return elements.get(operate(indexOf(one), indexOf(other)));
+    }
+
+    @Override
+    public T identity() {
+        return elements.get(identity);
+    }
+
+    @Override
+    public T inverseOf(T t) {
+        return elements.get(inverses[indexOf(t)]);
+    }
+
+    @Override
+    public boolean isIdentity(T t) {
+        return indexOf(t) == identity;
+    }
+}
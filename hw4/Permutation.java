@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * A permutation of <code>0</code> to <code>n - 1</code>, stored as the array of images: the
+ * permutation maps <code>i</code> to <code>apply(i)</code>. Permutations are immutable and compare by
+ * value, so they can be used as keys of hash-based collections.
+ */
+public final class Permutation {
+    private final int[] images;
+
+    private Permutation(int[] images) {
+        this.images = images;
+    }
+
+    /**
+     * @param images the image of every index, which together must contain each of <code>0</code> to
+     *               <code>images.length - 1</code> exactly once.
+     * @throws IllegalArgumentException if <code>images</code> is not a permutation.
+     */
+    public static Permutation of(int... images) {
+        boolean[] seen = new boolean[images.length];
+        for (int image : images) {
+            if (image < 0 || image >= images.length || seen[image])
+                throw new IllegalArgumentException("Not a permutation: " + Arrays.toString(images));
+            seen[image] = true;
+        }
+        return new Permutation(images.clone());
+    }
+
+    public static Permutation identity(int n) {
+        int[] images = new int[n];
+        for (int i = 0; i < n; i++) images[i] = i;
+        return new Permutation(images);
+    }
+
+    public int size() {
+        return images.length;
+    }
+
+    public int apply(int i) {
+        return images[i];
+    }
+
+    /**
+     * @return the permutation that applies <code>other</code> first and then this one, i.e.
+     * <code>i -> apply(other.apply(i))</code>.
+     */
+    public Permutation compose(Permutation other) {
+        if (other.images.length != images.length)
+            throw new IllegalArgumentException("Permutations of different sizes cannot be composed.");
+        int[] composed = new int[images.length];
+        for (int i = 0; i < composed.length; i++) composed[i] = images[other.images[i]];
+        return new Permutation(composed);
+    }
+
+    public Permutation inverse() {
+        int[] inverse = new int[images.length];
+        for (int i = 0; i < inverse.length; i++) inverse[images[i]] = i;
+        return new Permutation(inverse);
+    }
+
+    public boolean isIdentity() {
+        for (int i = 0; i < images.length; i++) if (images[i] != i) return false;
+        return true;
+    }
+
+    /**
+     * @return the symmetric group of all permutations of <code>0</code> to <code>n - 1</code>, under
+     * composition.
+     */
+    public static Group<Permutation> symmetricGroup(int n) {
+        Permutation identity = identity(n);
+        return new Group<Permutation>() {
+            @Override
+            public Permutation binaryOperation(Permutation one, Permutation other) {
+                return one.compose(other);
+            }
+
+            @Override
+            public Permutation identity() {
+                return identity;
+            }
+
+            @Override
+            public Permutation inverseOf(Permutation permutation) {
+                return permutation.inverse();
+            }
+
+            @Override
+            public boolean isIdentity(Permutation permutation) {
+                return permutation.isIdentity();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Permutation)) return false;
+        return Arrays.equals(images, ((Permutation) o).images);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(images);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(images);
+    }
+}